@@ -19,7 +19,12 @@ import org.junit.runners.Suite.SuiteClasses;
 @RunWith(Suite.class)
 @SuiteClasses({ TestIDEIntegration.class, TestSyntaxHighlighting.class, TestLSPIntegration.class,
 	TestNewCargoProjectWizard.class, TestRunConfiguration.class, TestExportCargoProjectWizard.class,
-	TestPerspective.class, TestLSPExtensions.class, TestSnippetContentAssistProcessor.class })
+	TestPerspective.class, TestLSPExtensions.class, TestSnippetContentAssistProcessor.class,
+	TestToolchainInventory.class, TestProcessRunner.class, TestToolchainProvisioner.class,
+	TestLanguageServerTrafficMeter.class, TestLanguageServerLog.class,
+	TestImplementationsCache.class, TestLineIndex.class, TestRustPartitions.class,
+	TestSnippetIndex.class, TestRustLexer.class, TestLargeDocumentFilter.class, TestSnippetLibrary.class,
+	TestRustLexerPresentationReconciler.class })
 public class AllTests {
 
 }
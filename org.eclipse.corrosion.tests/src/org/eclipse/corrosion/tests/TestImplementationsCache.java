@@ -0,0 +1,67 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.corrosion.edit.LanguageServerTrafficMeter;
+import org.eclipse.corrosion.extensions.ImplementationsCache;
+import org.eclipse.lsp4j.Location;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.junit.Test;
+
+public class TestImplementationsCache {
+	private static final List<Location> LOCATIONS = Collections
+			.singletonList(new Location("file:///lib.rs", new Range(new Position(1, 0), new Position(1, 4))));
+
+	@Test
+	public void testCachedByDocumentVersion() {
+		ImplementationsCache cache = ImplementationsCache.getInstance();
+		String key = ImplementationsCache.getKey("file:///main.rs", 1, new Position(3, 5));
+		cache.put(key, cache.getGeneration(), LOCATIONS);
+		assertEquals(LOCATIONS, cache.get(key));
+		assertNull(cache.get(ImplementationsCache.getKey("file:///main.rs", 2, new Position(3, 5))));
+	}
+
+	@Test
+	public void testResultOfOutdatedRequestIsNotCached() {
+		ImplementationsCache cache = ImplementationsCache.getInstance();
+		String key = ImplementationsCache.getKey("file:///main.rs", 1, new Position(7, 2));
+		long generation = cache.getGeneration();
+		cache.invalidate();
+		cache.put(key, generation, LOCATIONS);
+		assertNull(cache.get(key));
+	}
+
+	@Test
+	public void testDidChangeInvalidatesCache() throws IOException {
+		ImplementationsCache cache = ImplementationsCache.getInstance();
+		String key = ImplementationsCache.getKey("file:///main.rs", 1, new Position(9, 1));
+		cache.put(key, cache.getGeneration(), LOCATIONS);
+
+		String notification = "{\"jsonrpc\":\"2.0\",\"method\":\"textDocument/didChange\",\"params\":{}}";
+		byte[] content = notification.getBytes(StandardCharsets.UTF_8);
+		try (OutputStream toServer = LanguageServerTrafficMeter.getInstance().connect()
+				.meter(new ByteArrayOutputStream())) {
+			toServer.write(("Content-Length: " + content.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+			toServer.write(content);
+		}
+		assertNull(cache.get(key));
+	}
+}
@@ -0,0 +1,39 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.eclipse.corrosion.edit.LanguageServerLog;
+import org.junit.Test;
+
+public class TestLanguageServerLog {
+
+	@Test
+	public void testErrorStreamIsDrained() throws Exception {
+		LanguageServerLog log = LanguageServerLog.getInstance();
+		String marker = "drained-" + System.nanoTime();
+		byte[] output = ("first line\n" + marker + "\n").getBytes(StandardCharsets.UTF_8);
+		log.drain(new ByteArrayInputStream(output)).join(5000);
+
+		List<String> tail = log.getTail();
+		assertEquals(marker, tail.get(tail.size() - 1));
+		File logFile = new File(log.getLogDirectory(), "language-server.log");
+		assertTrue(logFile.exists());
+		assertTrue(new String(Files.readAllBytes(logFile.toPath()), StandardCharsets.UTF_8).contains(marker));
+	}
+}
@@ -0,0 +1,141 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.corrosion.edit.JsonRpcFrameDecoder;
+import org.eclipse.corrosion.edit.LanguageServerTrafficMeter;
+import org.eclipse.corrosion.edit.LanguageServerTrafficMeter.MethodStatistics;
+import org.junit.Test;
+
+public class TestLanguageServerTrafficMeter {
+
+	private static byte[] frame(String content) {
+		byte[] body = content.getBytes(StandardCharsets.UTF_8);
+		return ("Content-Length: " + body.length + "\r\n\r\n" + content).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testDecoderSplitsChunkedFrames() {
+		List<String> messages = new ArrayList<>();
+		JsonRpcFrameDecoder decoder = new JsonRpcFrameDecoder(
+				message -> messages.add(new String(message, StandardCharsets.UTF_8)));
+		byte[] first = frame("{\"a\":1}");
+		byte[] second = frame("{\"b\":2}");
+		byte[] bytes = new byte[first.length + second.length];
+		System.arraycopy(first, 0, bytes, 0, first.length);
+		System.arraycopy(second, 0, bytes, first.length, second.length);
+		for (int i = 0; i < bytes.length; i += 3) {
+			decoder.decode(bytes, i, Math.min(3, bytes.length - i));
+		}
+		assertEquals(2, messages.size());
+		assertEquals("{\"a\":1}", messages.get(0));
+		assertEquals("{\"b\":2}", messages.get(1));
+	}
+
+	@Test
+	public void testRequestsAreMatchedWithResponses() throws IOException {
+		LanguageServerTrafficMeter meter = LanguageServerTrafficMeter.getInstance();
+		meter.reset();
+		LanguageServerTrafficMeter.Connection connection = meter.connect();
+		try (OutputStream toServer = connection.meter(new ByteArrayOutputStream())) {
+			toServer.write(frame("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"textDocument/hover\",\"params\":{}}"));
+			toServer.write(frame("{\"jsonrpc\":\"2.0\",\"method\":\"textDocument/didChange\",\"params\":{}}"));
+		}
+		MethodStatistics hover = find(meter.getStatistics(), "textDocument/hover");
+		assertEquals(1, hover.getRequests());
+		assertEquals(1, hover.getInFlight());
+
+		ByteArrayOutputStream serverOutput = new ByteArrayOutputStream();
+		serverOutput.write(frame("{\"jsonrpc\":\"2.0\",\"id\":1,\"error\":{\"code\":-32601,\"message\":\"\"}}"));
+		try (InputStream fromServer = connection.meter(new ByteArrayInputStream(serverOutput.toByteArray()))) {
+			while (fromServer.read(new byte[16]) != -1) {
+				// consume the response
+			}
+		}
+		connection.close();
+		hover = find(meter.getStatistics(), "textDocument/hover");
+		assertEquals(0, hover.getInFlight());
+		assertEquals(1, hover.getResponses());
+		assertEquals(1, hover.getErrors());
+		assertTrue(hover.getBytesSent() > 0);
+		assertTrue(hover.getBytesReceived() > 0);
+		assertEquals(1, find(meter.getStatistics(), "textDocument/didChange").getNotifications());
+	}
+
+	@Test
+	public void testConnectionsHaveTheirOwnRequestIds() throws IOException {
+		LanguageServerTrafficMeter meter = LanguageServerTrafficMeter.getInstance();
+		meter.reset();
+		LanguageServerTrafficMeter.Connection first = meter.connect();
+		LanguageServerTrafficMeter.Connection second = meter.connect();
+		try (OutputStream toFirst = first.meter(new ByteArrayOutputStream());
+				OutputStream toSecond = second.meter(new ByteArrayOutputStream())) {
+			toFirst.write(frame("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"textDocument/hover\",\"params\":{}}"));
+			toSecond.write(frame("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"textDocument/completion\",\"params\":{}}"));
+		}
+		try (InputStream fromSecond = second
+				.meter(new ByteArrayInputStream(frame("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":null}")))) {
+			while (fromSecond.read(new byte[16]) != -1) {
+				// consume the response
+			}
+		}
+		assertEquals(1, find(meter.getStatistics(), "textDocument/hover").getInFlight());
+		assertEquals(0, find(meter.getStatistics(), "textDocument/completion").getInFlight());
+		assertEquals(1, find(meter.getStatistics(), "textDocument/completion").getResponses());
+
+		// stopping the second server does not forget the requests of the first one
+		second.close();
+		assertEquals(1, find(meter.getStatistics(), "textDocument/hover").getInFlight());
+		first.close();
+		assertEquals(0, find(meter.getStatistics(), "textDocument/hover").getInFlight());
+	}
+
+	@Test
+	public void testMessagesAreIdentifiedWithoutReadingTheParameters() throws IOException {
+		LanguageServerTrafficMeter meter = LanguageServerTrafficMeter.getInstance();
+		meter.reset();
+		LanguageServerTrafficMeter.Connection connection = meter.connect();
+		try (OutputStream toServer = connection.meter(new ByteArrayOutputStream())) {
+			toServer.write(frame("{\"jsonrpc\":\"2.0\",\"method\":\"textDocument/didOpen\",\"params\":"
+					+ "{\"text\":\"fn main() { let s = \\\"}\\\"; }\",\"id\":7}}"));
+			toServer.write(frame("{\"jsonrpc\":\"2.0\",\"method\":\"textDocument/definition\",\"id\":\"a\",\"params\":{}}"));
+		}
+		try (InputStream fromServer = connection.meter(new ByteArrayInputStream(
+				frame("{ \"jsonrpc\" : \"2.0\", \"id\" : \"a\", \"result\" : [ { \"uri\" : \"file:///]\" } ] }")))) {
+			while (fromServer.read(new byte[16]) != -1) {
+				// consume the response
+			}
+		}
+		connection.close();
+		// the id in the parameters is not the id of the notification
+		assertEquals(1, find(meter.getStatistics(), "textDocument/didOpen").getNotifications());
+		MethodStatistics definition = find(meter.getStatistics(), "textDocument/definition");
+		assertEquals(1, definition.getRequests());
+		assertEquals(1, definition.getResponses());
+		assertEquals(0, definition.getErrors());
+	}
+
+	private static MethodStatistics find(List<MethodStatistics> statistics, String method) {
+		return statistics.stream().filter(s -> s.getMethod().equals(method)).findFirst()
+				.orElseThrow(() -> new AssertionError("No statistics for " + method));
+	}
+}
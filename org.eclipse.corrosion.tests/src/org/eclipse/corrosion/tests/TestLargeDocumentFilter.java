@@ -0,0 +1,99 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.corrosion.edit.LargeDocumentFilter;
+import org.junit.Test;
+
+public class TestLargeDocumentFilter {
+
+	private static byte[] frame(String content) {
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		return ("Content-Length: " + bytes.length + "\r\n\r\n" + content).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String notification(String method, String uri, String text) {
+		return "{\"jsonrpc\":\"2.0\",\"method\":\"" + method + "\",\"params\":{\"textDocument\":{\"uri\":\"" + uri
+				+ "\"" + (text != null ? ",\"text\":\"" + text + "\"" : "") + "}}}";
+	}
+
+	@Test
+	public void testLargeDocumentsAreNotSynchronized() throws IOException {
+		ByteArrayOutputStream serverInput = new ByteArrayOutputStream();
+		OutputStream filtered = new LargeDocumentFilter(() -> 20).filter(serverInput);
+		filtered.write(frame(notification("textDocument/didOpen", "file:///large.rs", "fn main() { /* large */ }")));
+		filtered.write(frame(notification("textDocument/didChange", "file:///large.rs", null)));
+		filtered.write(frame(notification("textDocument/didOpen", "file:///small.rs", "fn a() {}")));
+		filtered.write(frame(notification("textDocument/didClose", "file:///large.rs", null)));
+		filtered.write(frame(notification("textDocument/didChange", "file:///small.rs", null)));
+		String sent = new String(serverInput.toByteArray(), StandardCharsets.UTF_8);
+
+		assertFalse(sent.contains("large */"));
+		assertFalse(sent.contains("didChange\",\"params\":{\"textDocument\":{\"uri\":\"file:///large.rs"));
+		assertFalse(sent.contains("didClose"));
+		assertTrue(sent.contains("didOpen\",\"params\":{\"textDocument\":{\"uri\":\"file:///small.rs"));
+		assertTrue(sent.contains("didChange\",\"params\":{\"textDocument\":{\"uri\":\"file:///small.rs"));
+	}
+
+	@Test
+	public void testRequestsOnLargeDocumentsAreAnsweredLocally() throws IOException {
+		LargeDocumentFilter filter = new LargeDocumentFilter(() -> 20);
+		ByteArrayOutputStream serverInput = new ByteArrayOutputStream();
+		PipedOutputStream serverOutput = new PipedOutputStream();
+		OutputStream toServer = filter.filter(serverInput);
+		InputStream fromServer = filter.filter(new PipedInputStream(serverOutput));
+		toServer.write(frame(notification("textDocument/didOpen", "file:///large.rs", "fn main() { /* large */ }")));
+		toServer.write(frame(notification("textDocument/didOpen", "file:///small.rs", "fn a() {}")));
+		toServer.write(frame(request("\"1\"", "textDocument/formatting", "file:///large.rs")));
+		toServer.write(frame(request("2", "textDocument/hover", "file:///small.rs")));
+		toServer.write(frame(request("3", "textDocument/rename", "file:///large.rs")));
+		serverOutput.write(frame("{\"jsonrpc\":\"2.0\",\"id\":2,\"result\":{}}"));
+		serverOutput.close();
+		String sent = new String(serverInput.toByteArray(), StandardCharsets.UTF_8);
+		String received = readAll(fromServer);
+
+		assertFalse(sent.contains("textDocument/formatting"));
+		assertFalse(sent.contains("textDocument/rename"));
+		assertTrue(sent.contains("textDocument/hover"));
+		assertTrue(received.contains(new String(frame("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":null}"),
+				StandardCharsets.UTF_8)));
+		assertTrue(received.contains(new String(frame("{\"jsonrpc\":\"2.0\",\"id\":3,\"result\":null}"),
+				StandardCharsets.UTF_8)));
+		assertTrue(received.contains(new String(frame("{\"jsonrpc\":\"2.0\",\"id\":2,\"result\":{}}"),
+				StandardCharsets.UTF_8)));
+	}
+
+	private static String request(String id, String method, String uri) {
+		return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"" + method
+				+ "\",\"params\":{\"textDocument\":{\"uri\":\"" + uri + "\"},"
+				+ "\"position\":{\"line\":0,\"character\":0}}}";
+	}
+
+	private static String readAll(InputStream input) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[64];
+		int read;
+		while ((read = input.read(buffer)) != -1) {
+			bytes.write(buffer, 0, read);
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
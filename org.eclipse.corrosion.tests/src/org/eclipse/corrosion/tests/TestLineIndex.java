@@ -0,0 +1,37 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.corrosion.extensions.LineIndex;
+import org.eclipse.lsp4j.Position;
+import org.junit.Test;
+
+public class TestLineIndex {
+
+	@Test
+	public void testLineDelimiters() {
+		LineIndex index = new LineIndex("fn a() {}\r\nimpl X for Y {\n}\rlast");
+		assertEquals(4, index.getLineCount());
+		assertEquals("fn a() {}", index.getLineContent(0));
+		assertEquals("impl X for Y {", index.getLineContent(1));
+		assertEquals(11, index.getLineOffset(1));
+		assertEquals("last", index.getLineContent(3));
+	}
+
+	@Test
+	public void testPositionsAreClamped() {
+		LineIndex index = new LineIndex("fn a() {}\nimpl X for Y {}\n");
+		assertEquals(15, index.toOffset(new Position(1, 5)));
+		assertEquals(9, index.toOffset(new Position(0, 99)));
+		assertEquals(26, index.toOffset(new Position(7, 0)));
+	}
+}
@@ -0,0 +1,102 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.corrosion.process.BoundedLineBuffer;
+import org.eclipse.corrosion.process.ProcessMetrics;
+import org.eclipse.corrosion.process.ProcessMetrics.Statistics;
+import org.eclipse.corrosion.process.ProcessResourceSampler;
+import org.eclipse.corrosion.process.ProcessResourceSampler.ResourceSample;
+import org.eclipse.corrosion.process.ProcessResult;
+import org.eclipse.corrosion.process.ProcessRunner;
+import org.junit.Test;
+
+public class TestProcessRunner {
+
+	@Test
+	public void testBoundedLineBuffer() {
+		BoundedLineBuffer buffer = new BoundedLineBuffer(2);
+		buffer.add("first");
+		buffer.add("second");
+		buffer.add("third");
+		assertEquals(Arrays.asList("second", "third"), buffer.getLines());
+		assertEquals(1, buffer.getDroppedLines());
+		assertEquals("first", buffer.getFirstLine());
+	}
+
+	@Test
+	public void testOutputIsCollected() throws IOException, InterruptedException {
+		assumeFalse(Platform.getOS().equals(Platform.OS_WIN32));
+		ProcessResult result = new ProcessRunner("sh", "-c", "echo out; echo err 1>&2").run(null);
+		assertTrue(result.isSuccessful());
+		assertEquals("out", result.getFirstOutputLine());
+		assertEquals(Arrays.asList("err"), result.getErrorLines());
+	}
+
+	@Test
+	public void testFirstOutputLineIsKeptWhenDropped() throws IOException, InterruptedException {
+		assumeFalse(Platform.getOS().equals(Platform.OS_WIN32));
+		ProcessResult result = new ProcessRunner("sh", "-c", "echo first; echo second").maxBufferedLines(1).run(null);
+		assertEquals(Arrays.asList("second"), result.getOutputLines());
+		assertEquals("first", result.getFirstOutputLine());
+	}
+
+	@Test
+	public void testAverageDurationExcludesStartedProcesses() throws IOException, InterruptedException {
+		assumeFalse(Platform.getOS().equals(Platform.OS_WIN32));
+		ProcessMetrics.reset();
+		new ProcessRunner("sh", "-c", "sleep 30").start().destroyForcibly().waitFor();
+		new ProcessRunner("sh", "-c", "sleep 0.3").run(null);
+		Statistics statistics = ProcessMetrics.getStatistics().iterator().next();
+		assertEquals(2, statistics.getSpawns());
+		assertEquals(1, statistics.getRuns());
+		assertTrue(statistics.getAverageDurationMillis() >= 300);
+	}
+
+	@Test
+	public void testTimeoutKillsProcess() throws IOException, InterruptedException {
+		assumeFalse(Platform.getOS().equals(Platform.OS_WIN32));
+		long start = System.currentTimeMillis();
+		ProcessResult result = new ProcessRunner("sleep", "30").timeout(500, TimeUnit.MILLISECONDS).run(null);
+		assertTrue(result.isTimedOut());
+		assertFalse(result.isSuccessful());
+		assertTrue(System.currentTimeMillis() - start < 10000);
+	}
+
+	@Test
+	public void testResourceSampling() throws IOException, InterruptedException {
+		assumeTrue(Platform.getOS().equals(Platform.OS_LINUX));
+		Process process = new ProcessRunner("sleep", "30").start();
+		try {
+			long pid = ProcessResourceSampler.getPid(process);
+			assertNotEquals(ProcessResourceSampler.UNKNOWN_PID, pid);
+			ResourceSample sample = ProcessResourceSampler.sample(pid);
+			assertNotNull(sample);
+			assertTrue(sample.getResidentBytes() > 0);
+		} finally {
+			process.destroyForcibly().waitFor();
+		}
+		assertNull(ProcessResourceSampler.sample(ProcessResourceSampler.UNKNOWN_PID));
+	}
+}
@@ -0,0 +1,73 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.corrosion.edit.RustLexer;
+import org.eclipse.corrosion.edit.RustLexer.TokenType;
+import org.junit.Test;
+
+public class TestRustLexer {
+
+	private static List<String> lex(String text) {
+		List<String> tokens = new ArrayList<>();
+		new RustLexer(text).lex(0, text.length(), RustLexer.INITIAL_STATE, (type, offset, length) -> {
+			if (type != TokenType.DEFAULT) {
+				tokens.add(type + " " + text.substring(offset, offset + length));
+			}
+		});
+		return tokens;
+	}
+
+	@Test
+	public void testLifetimesAndCharacters() {
+		List<String> tokens = lex("fn a<'a>(s: &'a str) -> char { '\\'' }");
+		assertEquals("KEYWORD fn", tokens.get(0));
+		assertEquals("LIFETIME 'a", tokens.get(1));
+		assertEquals("LIFETIME 'a", tokens.get(2));
+		assertEquals("CHARACTER '\\''", tokens.get(3));
+	}
+
+	@Test
+	public void testRawStringsAndMacros() {
+		List<String> tokens = lex("let r = r#\"a \"quoted\" // word\"#; println!(\"{}\", r);");
+		assertEquals("KEYWORD let", tokens.get(0));
+		assertEquals("STRING r#\"a \"quoted\" // word\"#", tokens.get(1));
+		assertEquals("MACRO println!", tokens.get(2));
+	}
+
+	@Test
+	public void testNestedCommentsAcrossLines() {
+		String text = "/* outer /* inner */\nstill a comment */ fn";
+		RustLexer lexer = new RustLexer(text);
+		int lineEnd = text.indexOf('\n') + 1;
+		int state = lexer.lex(0, lineEnd, RustLexer.INITIAL_STATE, null);
+		assertNotEquals(RustLexer.INITIAL_STATE, state);
+		List<String> tokens = new ArrayList<>();
+		state = lexer.lex(lineEnd, text.length(), state,
+				(type, offset, length) -> tokens.add(type + " " + text.substring(offset, offset + length)));
+		assertEquals(RustLexer.INITIAL_STATE, state);
+		assertEquals("COMMENT still a comment */", tokens.get(0));
+		assertEquals("KEYWORD fn", tokens.get(2));
+	}
+
+	@Test
+	public void testAttributes() {
+		List<String> tokens = lex("#[cfg(feature = \"]\")]\n#![allow(dead_code)] mod m;");
+		assertEquals("ATTRIBUTE #[cfg(feature = \"]\")]", tokens.get(0));
+		assertEquals("ATTRIBUTE #![allow(dead_code)]", tokens.get(1));
+		assertEquals("KEYWORD mod", tokens.get(2));
+	}
+}
@@ -0,0 +1,101 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.corrosion.edit.RustLexerPresentationReconciler;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Region;
+import org.eclipse.jface.text.TypedRegion;
+import org.eclipse.jface.text.presentation.IPresentationDamager;
+import org.junit.Test;
+
+public class TestRustLexerPresentationReconciler {
+	private IDocument document;
+	private IPresentationDamager damager;
+
+	private void createDocument(String text) {
+		document = new Document(text);
+		damager = new RustLexerPresentationReconciler().getDamager(IDocument.DEFAULT_CONTENT_TYPE);
+		damager.setDocument(document);
+		// the first damage computes the states of all the lines
+		assertEquals(new Region(0, document.getLength()), getDamageRegion(new DocumentEvent(document, 0, 0, "")));
+	}
+
+	private IRegion getDamageRegion(DocumentEvent event) {
+		return damager.getDamageRegion(new TypedRegion(0, document.getLength(), IDocument.DEFAULT_CONTENT_TYPE),
+				event, false);
+	}
+
+	private IRegion replace(int offset, int length, String text) throws BadLocationException {
+		DocumentEvent[] event = new DocumentEvent[1];
+		IDocumentListener listener = new IDocumentListener() {
+			@Override
+			public void documentAboutToBeChanged(DocumentEvent e) {
+				// Only the change is needed
+			}
+
+			@Override
+			public void documentChanged(DocumentEvent e) {
+				event[0] = e;
+			}
+		};
+		document.addDocumentListener(listener);
+		document.replace(offset, length, text);
+		document.removeDocumentListener(listener);
+		return getDamageRegion(event[0]);
+	}
+
+	/**
+	 * Checks that the damage goes from the start of the first line to the start
+	 * of the end line
+	 */
+	private void assertDamagedLines(IRegion damage, int firstLine, int endLine) throws BadLocationException {
+		int start = document.getLineOffset(firstLine);
+		assertEquals(new Region(start, document.getLineOffset(endLine) - start), damage);
+	}
+
+	private void assertDamagedToEnd(IRegion damage, int firstLine) throws BadLocationException {
+		int start = document.getLineOffset(firstLine);
+		assertEquals(new Region(start, document.getLength() - start), damage);
+	}
+
+	@Test
+	public void testClosedBlockCommentOnlyDamagesChangedLines() throws BadLocationException {
+		createDocument("fn a() {}\nlet x = 1;\nlet y = 2;\nlet z = 3;\n");
+		assertDamagedLines(replace(document.getLineOffset(1), 0, "/* one\ntwo */\n"), 1, 4);
+	}
+
+	@Test
+	public void testOpeningAndClosingBlockComment() throws BadLocationException {
+		createDocument("fn a() {}\nlet x = 1;\nlet y = 2;\nlet z = 3;\n");
+		assertDamagedToEnd(replace(document.getLineOffset(1), 0, "/* one\ntwo\n"), 1);
+		assertDamagedToEnd(replace(document.getLineOffset(3), 0, "three */\nfour\n"), 3);
+		// the lines after the deleted comment were already outside of it
+		assertDamagedLines(replace(document.getLineOffset(1), "/* one\ntwo\nthree */\n".length(), ""), 1, 2);
+	}
+
+	@Test
+	public void testLinesInsertedAndDeletedBeforeRawString() throws BadLocationException {
+		createDocument("fn a() {}\nlet s = r#\"\nraw \"string\"\n\"#;\nlet z = 3;\n");
+		String inserted = "let x = 1;\nlet y = 2;\n";
+		// the raw string starts on the same line with the same state
+		assertDamagedLines(replace(document.getLineOffset(1), 0, inserted), 1, 4);
+		assertDamagedLines(replace(document.getLineOffset(1), inserted.length(), ""), 1, 2);
+		// the lines after the new start of the raw string were already inside it
+		assertDamagedLines(replace(document.getLineOffset(1), 0, "r#\"\n"), 1, 3);
+	}
+}
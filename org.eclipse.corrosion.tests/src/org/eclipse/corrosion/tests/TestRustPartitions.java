@@ -0,0 +1,63 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.corrosion.edit.RustPartitions;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.junit.Test;
+
+public class TestRustPartitions {
+
+	@Test
+	public void testNestedBlockComments() {
+		IDocument document = new Document("/* a /* nested */ comment */ code");
+		assertTrue(RustPartitions.isInComment(document, 20));
+		assertFalse(RustPartitions.isInComment(document, document.getLength()));
+	}
+
+	@Test
+	public void testUnterminatedComments() {
+		assertTrue(RustPartitions.isInComment(new Document("code // comment"), 15));
+		assertTrue(RustPartitions.isInComment(new Document("code /* comment"), 15));
+		assertFalse(RustPartitions.isInComment(new Document("// comment\n"), 11));
+	}
+
+	@Test
+	public void testCommentsInStrings() {
+		IDocument document = new Document("let a = \"// not a comment\"; let b = r#\"/* \"raw\" \"#; c");
+		assertFalse(RustPartitions.isInComment(document, 15));
+		assertTrue(RustPartitions.isInString(document, 15));
+		assertTrue(RustPartitions.isInString(document, 42));
+		assertFalse(RustPartitions.isInString(document, document.getLength()));
+	}
+
+	@Test
+	public void testCharactersAndLifetimes() {
+		IDocument document = new Document("fn a<'a>(s: &'a str) -> char { '\"' } // end");
+		assertFalse(RustPartitions.isInString(document, 15));
+		assertFalse(RustPartitions.isInString(document, 37));
+		assertTrue(RustPartitions.isInComment(document, document.getLength()));
+	}
+
+	@Test
+	public void testIncrementalUpdates() throws BadLocationException {
+		IDocument document = new Document("fn main() {}\nlet a = 1;");
+		assertFalse(RustPartitions.isInComment(document, 20));
+		document.replace(0, 0, "/*");
+		assertTrue(RustPartitions.isInComment(document, 22));
+		document.replace(14, 0, "*/");
+		assertFalse(RustPartitions.isInComment(document, 22));
+	}
+}
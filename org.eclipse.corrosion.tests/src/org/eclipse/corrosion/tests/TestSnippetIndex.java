@@ -0,0 +1,55 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.corrosion.snippet.Snippet;
+import org.eclipse.corrosion.snippet.SnippetIndex;
+import org.eclipse.lsp4j.CompletionItemKind;
+import org.junit.Test;
+
+public class TestSnippetIndex {
+	private final SnippetIndex index = createIndex("for", "unimplemented", "unreachable", "println", "macro_rules",
+			"if let Option", "matchOk");
+
+	private static SnippetIndex createIndex(String... names) {
+		List<Snippet> snippets = new ArrayList<>();
+		for (String name : names) {
+			snippets.add(new Snippet(name, CompletionItemKind.Snippet, new String[] { name }));
+		}
+		return new SnippetIndex(snippets);
+	}
+
+	private List<String> getMatches(String prefix) {
+		return index.getMatches(prefix).stream().map(Snippet::getDisplay).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testPrefixIgnoresCase() {
+		assertEquals(7, getMatches("").size());
+		assertEquals(1, getMatches("Printl").size());
+		assertEquals(2, getMatches("un").size());
+		assertTrue(getMatches("while").isEmpty());
+	}
+
+	@Test
+	public void testInitials() {
+		assertEquals("macro_rules", getMatches("mr").get(0));
+		assertEquals("if let Option", getMatches("ILO").get(0));
+		assertEquals("matchOk", getMatches("mo").get(0));
+		assertEquals(2, getMatches("m").size());
+	}
+}
@@ -0,0 +1,37 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.eclipse.corrosion.snippet.Snippet;
+import org.eclipse.corrosion.snippet.SnippetLibrary;
+import org.eclipse.lsp4j.CompletionItemKind;
+import org.junit.Test;
+
+public class TestSnippetLibrary {
+
+	@Test
+	public void testParse() {
+		List<Snippet> snippets = SnippetLibrary.parse(new StringReader("[" //
+				+ "{\"display\": \"for\", \"replacementLines\": [\"for ${1} in ${2} {\", \"}\"]}," //
+				+ "{\"display\": \"fn\", \"completionItemKind\": 3, \"replacementLines\": [\"fn ${1}() {}\"]}," //
+				+ "{\"display\": \"incomplete\"}" //
+				+ "]"));
+		assertEquals(2, snippets.size());
+		assertEquals("for", snippets.get(0).getDisplay());
+		assertEquals(CompletionItemKind.Snippet, snippets.get(0).getKind());
+		assertEquals("fn", snippets.get(1).getDisplay());
+		assertEquals(CompletionItemKind.Function, snippets.get(1).getKind());
+	}
+}
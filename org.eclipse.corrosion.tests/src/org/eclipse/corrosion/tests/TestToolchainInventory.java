@@ -0,0 +1,82 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.eclipse.corrosion.ToolchainInventory;
+import org.junit.Test;
+
+public class TestToolchainInventory {
+
+	private static final String[] MULTIPLE_TOOLCHAINS_OUTPUT = new String[] {
+			"Default host: x86_64-unknown-linux-gnu", "", "installed toolchains", "--------------------", "",
+			"stable-x86_64-unknown-linux-gnu (default)", "nightly-2018-03-01-x86_64-unknown-linux-gnu",
+			"beta-x86_64-unknown-linux-gnu", "", "installed targets for active toolchain",
+			"--------------------------------------", "", "wasm32-unknown-unknown", "x86_64-unknown-linux-gnu", "",
+			"active toolchain", "----------------", "", "stable-x86_64-unknown-linux-gnu (default)",
+			"rustc 1.25.0 (84203cac6 2018-03-25)" };
+
+	private static final String[] SINGLE_TOOLCHAIN_OUTPUT = new String[] { "Default host: x86_64-unknown-linux-gnu",
+			"", "beta-x86_64-unknown-linux-gnu (default)", "rustc 1.26.0-beta.1 (a5f3b0b55 2018-03-27)" };
+
+	@Test
+	public void testMultipleToolchains() {
+		ToolchainInventory inventory = ToolchainInventory.parse(Arrays.asList(MULTIPLE_TOOLCHAINS_OUTPUT), null);
+		assertEquals(Arrays.asList("stable-x86_64-unknown-linux-gnu", "nightly-2018-03-01-x86_64-unknown-linux-gnu",
+				"beta-x86_64-unknown-linux-gnu"), inventory.getToolchains());
+		assertEquals("stable-x86_64-unknown-linux-gnu", inventory.getDefaultToolchain());
+		assertEquals(Arrays.asList("wasm32-unknown-unknown", "x86_64-unknown-linux-gnu"), inventory.getTargets());
+		assertEquals("nightly-2018-03-01-x86_64-unknown-linux-gnu", inventory.findToolchain("nightly-2018-03-01"));
+		assertNull(inventory.findToolchain("nightly"));
+	}
+
+	@Test
+	public void testSingleToolchainWithoutSections() {
+		ToolchainInventory inventory = ToolchainInventory.parse(Arrays.asList(SINGLE_TOOLCHAIN_OUTPUT), null);
+		assertEquals(Collections.singletonList("beta-x86_64-unknown-linux-gnu"), inventory.getToolchains());
+		assertEquals("beta-x86_64-unknown-linux-gnu", inventory.getDefaultToolchain());
+		inventory = ToolchainInventory.parse(Arrays.asList("active toolchain", "----------------", "",
+				"beta-x86_64-unknown-linux-gnu (default)", "rustc 1.26.0-beta.1 (a5f3b0b55 2018-03-27)"), null);
+		assertEquals(Collections.singletonList("beta-x86_64-unknown-linux-gnu"), inventory.getToolchains());
+		assertEquals("beta-x86_64-unknown-linux-gnu", inventory.getDefaultToolchain());
+	}
+
+	@Test
+	public void testShortNames() {
+		assertEquals("stable", ToolchainInventory.toShortName("stable-x86_64-unknown-linux-gnu"));
+		assertEquals("nightly-2018-03-01",
+				ToolchainInventory.toShortName("nightly-2018-03-01-x86_64-unknown-linux-gnu"));
+		assertEquals("custom", ToolchainInventory.toShortName("custom"));
+	}
+
+	@Test
+	public void testComponentsFromToolchainsDirectory() throws IOException {
+		Path toolchains = Files.createTempDirectory("toolchains");
+		Path rustlib = toolchains.resolve("stable-x86_64-unknown-linux-gnu").resolve("lib").resolve("rustlib");
+		Files.createDirectories(rustlib);
+		Files.write(rustlib.resolve("components"),
+				Arrays.asList("rustc-x86_64-unknown-linux-gnu", "rls-preview-x86_64-unknown-linux-gnu"));
+		ToolchainInventory inventory = ToolchainInventory.parse(Arrays.asList(MULTIPLE_TOOLCHAINS_OUTPUT),
+				toolchains);
+		assertTrue(inventory.hasComponent("stable", "rls-preview"));
+		assertFalse(inventory.hasComponent("stable", "rust-analysis"));
+		assertFalse(inventory.hasComponent("beta", "rls-preview"));
+	}
+}
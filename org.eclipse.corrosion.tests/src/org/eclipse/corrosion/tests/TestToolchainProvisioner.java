@@ -0,0 +1,64 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.corrosion.ToolchainInventory;
+import org.eclipse.corrosion.ToolchainProvisioner;
+import org.eclipse.corrosion.ToolchainProvisioner.Step;
+import org.junit.Test;
+
+public class TestToolchainProvisioner {
+
+	private static final List<String> RUSTUP_SHOW_OUTPUT = Arrays.asList("installed toolchains",
+			"--------------------", "", "stable-x86_64-unknown-linux-gnu (default)",
+			"beta-x86_64-unknown-linux-gnu");
+
+	@Test
+	public void testMissingToolchainIsInstalledWithComponents() {
+		List<Step> steps = ToolchainProvisioner.planSteps("rustup", "nightly", ToolchainInventory.EMPTY);
+		assertEquals(2, steps.size());
+		assertEquals(Arrays.asList("rustup", "toolchain", "install", "nightly", "--component", "rls-preview",
+				"--component", "rust-analysis"), steps.get(0).getCommand());
+		assertEquals(2, steps.get(0).getFallbackSteps().size());
+		assertEquals(Arrays.asList("rustup", "default", "nightly"), steps.get(1).getCommand());
+	}
+
+	@Test
+	public void testInstalledComponentsAreSkipped() throws IOException {
+		Path toolchains = Files.createTempDirectory("toolchains");
+		writeComponents(toolchains, "stable-x86_64-unknown-linux-gnu", "rls-preview-x86_64-unknown-linux-gnu",
+				"rust-analysis-x86_64-unknown-linux-gnu");
+		writeComponents(toolchains, "beta-x86_64-unknown-linux-gnu", "rls-preview-x86_64-unknown-linux-gnu");
+		ToolchainInventory inventory = ToolchainInventory.parse(RUSTUP_SHOW_OUTPUT, toolchains);
+
+		assertTrue(ToolchainProvisioner.planSteps("rustup", "stable", inventory).isEmpty());
+		List<Step> steps = ToolchainProvisioner.planSteps("rustup", "beta", inventory);
+		assertEquals(2, steps.size());
+		assertEquals(Arrays.asList("rustup", "component", "add", "--toolchain", "beta", "rust-analysis"),
+				steps.get(0).getCommand());
+		assertEquals(Arrays.asList("rustup", "default", "beta"), steps.get(1).getCommand());
+	}
+
+	private static void writeComponents(Path toolchains, String toolchain, String... components)
+			throws IOException {
+		Path rustlib = toolchains.resolve(toolchain).resolve("lib").resolve("rustlib");
+		Files.createDirectories(rustlib);
+		Files.write(rustlib.resolve("components"), Arrays.asList(components));
+	}
+}
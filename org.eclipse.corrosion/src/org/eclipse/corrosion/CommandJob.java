@@ -12,19 +12,17 @@
  *******************************************************************************/
 package org.eclipse.corrosion;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.corrosion.process.ProcessResult;
+import org.eclipse.corrosion.process.ProcessRunner;
 
 public class CommandJob extends Job {
-	private Process process;
 	private String[] command;
 	private String progressMessage;
 	private String errorTitle;
@@ -46,18 +44,14 @@ public class CommandJob extends Job {
 		SubMonitor subMonitor = SubMonitor.convert(monitor, expectedWork);
 		try {
 			subMonitor.beginTask(progressMessage, expectedWork);
-			process = new ProcessBuilder(command).start();
-			BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-			CompletableFuture.runAsync(() -> {
-				reader.lines().forEachOrdered(line -> {
-					subMonitor.subTask(line);
-					if (expectedWork > 0) {
-						subMonitor.worked(1);
-					}
-				});
-			});
-			if (process.waitFor() != 0) {
-				if (!subMonitor.isCanceled()) {
+			ProcessResult result = new ProcessRunner(command).onErrorLine(line -> {
+				subMonitor.subTask(line);
+				if (expectedWork > 0) {
+					subMonitor.worked(1);
+				}
+			}).run(subMonitor);
+			if (!result.isSuccessful()) {
+				if (!result.isCanceled()) {
 					CorrosionPlugin.showError(errorTitle, errorMessage);
 				}
 				return Status.CANCEL_STATUS;
@@ -72,11 +66,4 @@ public class CommandJob extends Job {
 			return Status.CANCEL_STATUS;
 		}
 	}
-
-	@Override
-	protected void canceling() {
-		if (process != null) {
-			process.destroyForcibly();
-		}
-	}
 }
@@ -14,6 +14,8 @@ package org.eclipse.corrosion;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.corrosion.cargo.core.CargoOptionsCache;
+import org.eclipse.corrosion.snippet.SnippetLibrary;
 import org.eclipse.jface.dialogs.IDialogConstants;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.swt.widgets.Display;
@@ -37,10 +39,12 @@ public class CorrosionPlugin extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		setSharedInstance(this);
+		CargoOptionsCache.scheduleWarmUp();
 	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		SnippetLibrary.getInstance().dispose();
 		setSharedInstance(null);
 		super.stop(context);
 	}
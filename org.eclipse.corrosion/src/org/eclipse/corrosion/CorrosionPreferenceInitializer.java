@@ -12,18 +12,33 @@
  *******************************************************************************/
 package org.eclipse.corrosion;
 
-import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.preferences.AbstractPreferenceInitializer;
+import org.eclipse.corrosion.edit.RLSBackend;
+import org.eclipse.corrosion.edit.RustPresentationReconciler;
+import org.eclipse.corrosion.process.ProcessResult;
+import org.eclipse.corrosion.process.ProcessRunner;
 import org.eclipse.jface.preference.IPreferenceStore;
 
 public class CorrosionPreferenceInitializer extends AbstractPreferenceInitializer {
 
 	private static final IPreferenceStore STORE = CorrosionPlugin.getDefault().getPreferenceStore();
-	private static final String USER_HOME_PROPERTY = "user.home"; //$NON-NLS-1$
 
 	public static final String RUST_SOURCE_PREFERENCE = "corrosion.rustSource"; //$NON-NLS-1$
 
@@ -36,60 +51,199 @@ public class CorrosionPreferenceInitializer extends AbstractPreferenceInitialize
 	public static final String RLS_PATH_PREFERENCE = "corrosion.rslPath"; //$NON-NLS-1$
 	public static final String SYSROOT_PATH_PREFERENCE = "corrosion.sysrootPath"; //$NON-NLS-1$
 
+	public static final String LANGUAGE_SERVER_MEMORY_LIMIT_PREFERENCE = "corrosion.languageServer_memoryLimit"; //$NON-NLS-1$
+	public static final String LANGUAGE_SERVER_BACKEND_PREFERENCE = "corrosion.languageServer_backend"; //$NON-NLS-1$
+	public static final String RUST_ANALYZER_PATH_PREFERENCE = "corrosion.rustAnalyzerPath"; //$NON-NLS-1$
+	public static final String LANGUAGE_SERVER_TARGET_DIR_PREFERENCE = "corrosion.languageServer_targetDir"; //$NON-NLS-1$
+	public static final String LANGUAGE_SERVER_WARM_UP_PREFERENCE = "corrosion.languageServer_warmUp"; //$NON-NLS-1$
+
+	public static final String RLS_WAIT_TO_BUILD_PREFERENCE = "corrosion.rls_waitToBuild"; //$NON-NLS-1$
+	public static final String RLS_BUILD_ON_SAVE_PREFERENCE = "corrosion.rls_buildOnSave"; //$NON-NLS-1$
+	public static final String RLS_JOBS_PREFERENCE = "corrosion.rls_jobs"; //$NON-NLS-1$
+	public static final String RLS_ALL_TARGETS_PREFERENCE = "corrosion.rls_allTargets"; //$NON-NLS-1$
+	public static final String RLS_CFG_TEST_PREFERENCE = "corrosion.rls_cfgTest"; //$NON-NLS-1$
+	public static final String RLS_RACER_COMPLETION_PREFERENCE = "corrosion.rls_racerCompletion"; //$NON-NLS-1$
+
+	public static final String SYNTAX_HIGHLIGHTING_PREFERENCE = "corrosion.textEditor_syntaxHighlighting"; //$NON-NLS-1$
+	public static final String LARGE_FILE_THRESHOLD_PREFERENCE = "corrosion.textEditor_largeFileThreshold"; //$NON-NLS-1$
+
+	private static final long PROBE_TIMEOUT_SECONDS = 30;
+	private static final String DISCOVERY_SNAPSHOT_FILE = "discovery.properties"; //$NON-NLS-1$
+	private static final String[] DISCOVERED_PREFERENCES = new String[] { RUSTUP_PATHS_PREFERENCE,
+			CARGO_PATH_PREFERENCE, TOOLCHAIN_ID_PREFERENCE, TOOLCHAIN_TYPE_PREFERENCE, RLS_PATH_PREFERENCE,
+			SYSROOT_PATH_PREFERENCE };
+
+	private static final ExecutorService DISCOVERY_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "Corrosion tool discovery"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// held while the discovered defaults are applied, by the job or the preference page
+	private static final Object DISCOVERY_LOCK = new Object();
+
+	private static Job discoveryJob;
+
+	/**
+	 * Sets the defaults from the last discovery snapshot, if any, and revalidates
+	 * them in the background so that the calling thread, often the UI thread, never
+	 * waits on the tool probes.
+	 */
 	@Override
 	public void initializeDefaultPreferences() {
 		STORE.setDefault(RUST_SOURCE_PREFERENCE, "rustup"); //$NON-NLS-1$
-
 		STORE.setDefault(DEFAULT_PATHS_PREFERENCE, true);
-		STORE.setDefault(RUSTUP_PATHS_PREFERENCE, getRustupPathBestGuess());
-		STORE.setDefault(CARGO_PATH_PREFERENCE, getCargoPathBestGuess());
-		setToolchainBestGuesses();
+		STORE.setDefault(LANGUAGE_SERVER_MEMORY_LIMIT_PREFERENCE, 0);
+		STORE.setDefault(LANGUAGE_SERVER_BACKEND_PREFERENCE, RLSBackend.ID);
+		STORE.setDefault(RUST_ANALYZER_PATH_PREFERENCE, ""); //$NON-NLS-1$
+		STORE.setDefault(LANGUAGE_SERVER_TARGET_DIR_PREFERENCE, "target-rls"); //$NON-NLS-1$
+		STORE.setDefault(LANGUAGE_SERVER_WARM_UP_PREFERENCE, false);
+		STORE.setDefault(RLS_WAIT_TO_BUILD_PREFERENCE, 1500);
+		STORE.setDefault(RLS_BUILD_ON_SAVE_PREFERENCE, false);
+		STORE.setDefault(RLS_JOBS_PREFERENCE, 0);
+		STORE.setDefault(RLS_ALL_TARGETS_PREFERENCE, true);
+		STORE.setDefault(RLS_CFG_TEST_PREFERENCE, false);
+		STORE.setDefault(RLS_RACER_COMPLETION_PREFERENCE, true);
+		STORE.setDefault(SYNTAX_HIGHLIGHTING_PREFERENCE, RustPresentationReconciler.TEXTMATE);
+		STORE.setDefault(LARGE_FILE_THRESHOLD_PREFERENCE, 5);
 
-		STORE.setDefault(RLS_PATH_PREFERENCE, getRLSPathBestGuess());
-		STORE.setDefault(SYSROOT_PATH_PREFERENCE, getSysrootPathBestGuess());
+		Properties snapshot = loadDiscoverySnapshot();
+		synchronized (DISCOVERY_LOCK) {
+			for (String preference : DISCOVERED_PREFERENCES) {
+				STORE.setDefault(preference, snapshot.getProperty(preference, getFallbackDefault(preference)));
+			}
+		}
+		scheduleDiscovery();
 	}
 
-	private String getRustupPathBestGuess() {
-		String command = findCommandPath("rustup"); //$NON-NLS-1$
-		if (command.isEmpty()) {
-			File possibleCommandFile = new File(System.getProperty(USER_HOME_PROPERTY) + "/.cargo/bin/rustup"); //$NON-NLS-1$ 
-			if (possibleCommandFile.exists() && possibleCommandFile.isFile() && possibleCommandFile.canExecute()) {
-				return possibleCommandFile.getAbsolutePath();
-			}
+	/**
+	 * @return a guess that does not need any probe, used until the first
+	 *         discovery is completed
+	 */
+	private static String getFallbackDefault(String preference) {
+		switch (preference) {
+		case RUSTUP_PATHS_PREFERENCE:
+			return getCargoBinGuess(ToolLocator.RUSTUP);
+		case CARGO_PATH_PREFERENCE:
+			return getCargoBinGuess(ToolLocator.CARGO);
+		case RLS_PATH_PREFERENCE:
+			return getCargoBinGuess(ToolLocator.RLS);
+		case TOOLCHAIN_TYPE_PREFERENCE:
+			return "Other"; //$NON-NLS-1$
+		default:
+			return ""; //$NON-NLS-1$
 		}
-		return command;
 	}
 
-	private String getCargoPathBestGuess() {
-		String command = findCommandPath("cargo"); //$NON-NLS-1$
-		if (command.isEmpty()) {
-			File possibleCommandFile = new File(System.getProperty(USER_HOME_PROPERTY) + "/.cargo/bin/cargo"); //$NON-NLS-1$ 
-			if (possibleCommandFile.exists() && possibleCommandFile.isFile() && possibleCommandFile.canExecute()) {
-				return possibleCommandFile.getAbsolutePath();
-			}
+	private static String getCargoBinGuess(String command) {
+		File possibleCommandFile = ToolLocator.getCargoBinDirectory().resolve(command).toFile();
+		if (possibleCommandFile.isFile() && possibleCommandFile.canExecute()) {
+			return possibleCommandFile.getAbsolutePath();
 		}
-		return command;
+		return ""; //$NON-NLS-1$
 	}
 
-	private String findCommandPath(String command) {
-		try {
-			ProcessBuilder builder = new ProcessBuilder("which", command); //$NON-NLS-1$
-			Process process = builder.start();
+	private static synchronized void scheduleDiscovery() {
+		if (discoveryJob != null) {
+			discoveryJob.cancel();
+		}
+		discoveryJob = new Job(Messages.CorrosionPreferenceInitializer_discoveringTools) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				new CorrosionPreferenceInitializer().discoverDefaultPreferences(monitor);
+				return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+			}
+		};
+		discoveryJob.setSystem(true);
+		discoveryJob.schedule();
+	}
 
-			if (process.waitFor() == 0) {
-				try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-					return in.readLine();
-				}
+	public void discoverDefaultPreferences() {
+		discoverDefaultPreferences(null);
+	}
+
+	/**
+	 * Probes the installed Rust tools concurrently, publishes the results as
+	 * default preferences and stores them in the discovery snapshot used by the
+	 * next startups. Blocks until all probes are completed. The probes run on
+	 * their own threads rather than in the common pool shared with the rest of
+	 * the workbench, the defaults are only set by the calling thread.
+	 *
+	 * @param monitor
+	 *            the monitor whose cancellation kills the probed tools, may be
+	 *            <code>null</code>. Nothing is published once canceled.
+	 */
+	public void discoverDefaultPreferences(IProgressMonitor monitor) {
+		CompletableFuture<String> rustup = CompletableFuture.supplyAsync(this::getRustupPathBestGuess, DISCOVERY_EXECUTOR);
+		CompletableFuture<String> cargo = CompletableFuture.supplyAsync(this::getCargoPathBestGuess, DISCOVERY_EXECUTOR);
+		CompletableFuture<String> rls = CompletableFuture.supplyAsync(this::getRLSPathBestGuess, DISCOVERY_EXECUTOR);
+		CompletableFuture<String> sysroot = CompletableFuture.supplyAsync(() -> getSysrootPathBestGuess(monitor),
+				DISCOVERY_EXECUTOR);
+		try {
+			String rustupPath = rustup.get();
+			synchronized (DISCOVERY_LOCK) {
+				STORE.setDefault(RUSTUP_PATHS_PREFERENCE, rustupPath);
+			}
+			// the toolchains are listed by the rustup of the preferences
+			String toolchain = RustManager.getDefaultToolchain(monitor);
+			String cargoPath = cargo.get();
+			String rlsPath = rls.get();
+			String sysrootPath = sysroot.get();
+			if (monitor != null && monitor.isCanceled()) {
+				return;
+			}
+			synchronized (DISCOVERY_LOCK) {
+				STORE.setDefault(CARGO_PATH_PREFERENCE, cargoPath);
+				STORE.setDefault(RLS_PATH_PREFERENCE, rlsPath);
+				STORE.setDefault(SYSROOT_PATH_PREFERENCE, sysrootPath);
+				setToolchainBestGuesses(toolchain);
+				saveDiscoverySnapshot();
 			}
-		} catch (IOException e) { // Errors caught with empty return
+		} catch (ExecutionException e) {
+			CorrosionPlugin.logError(e);
 		} catch (InterruptedException e) {
 			Thread.currentThread().interrupt();
 		}
-		return ""; //$NON-NLS-1$
 	}
 
-	private void setToolchainBestGuesses() {
-		String toolchain = RustManager.getDefaultToolchain();
+	private static File getDiscoverySnapshotFile() {
+		return CorrosionPlugin.getDefault().getStateLocation().append(DISCOVERY_SNAPSHOT_FILE).toFile();
+	}
+
+	private static Properties loadDiscoverySnapshot() {
+		Properties snapshot = new Properties();
+		File file = getDiscoverySnapshotFile();
+		if (file.isFile()) {
+			try (InputStream in = new FileInputStream(file)) {
+				snapshot.load(in);
+			} catch (IOException e) {
+				// Caught with empty snapshot
+			}
+		}
+		return snapshot;
+	}
+
+	private static void saveDiscoverySnapshot() {
+		Properties snapshot = new Properties();
+		for (String preference : DISCOVERED_PREFERENCES) {
+			snapshot.setProperty(preference, STORE.getDefaultString(preference));
+		}
+		try (OutputStream out = new FileOutputStream(getDiscoverySnapshotFile())) {
+			snapshot.store(out, null);
+		} catch (IOException e) {
+			CorrosionPlugin.logError(e);
+		}
+	}
+
+	private String getRustupPathBestGuess() {
+		return ToolLocator.locate(ToolLocator.RUSTUP);
+	}
+
+	private String getCargoPathBestGuess() {
+		return ToolLocator.locate(ToolLocator.CARGO);
+	}
+
+	private static void setToolchainBestGuesses(String toolchain) {
 		if (toolchain == null || toolchain.isEmpty()) {
 			STORE.setDefault(TOOLCHAIN_ID_PREFERENCE, ""); //$NON-NLS-1$
 			STORE.setDefault(TOOLCHAIN_TYPE_PREFERENCE, "Other"); //$NON-NLS-1$
@@ -116,32 +270,25 @@ public class CorrosionPreferenceInitializer extends AbstractPreferenceInitialize
 	}
 
 	private String getRLSPathBestGuess() {
-		String command = findCommandPath("rls"); //$NON-NLS-1$
-		if (command.isEmpty()) {
-			File possibleCommandFile = new File(System.getProperty(USER_HOME_PROPERTY) + "/.cargo/bin/rls"); //$NON-NLS-1$ 
-			if (possibleCommandFile.exists() && possibleCommandFile.isFile() && possibleCommandFile.canExecute()) {
-				return possibleCommandFile.getAbsolutePath();
-			}
-		}
-		return command;
+		return ToolLocator.locate(ToolLocator.RLS);
 	}
 
-	private String getSysrootPathBestGuess() {
-		File rustc = new File(findCommandPath("rustc")); //$NON-NLS-1$
-		if (!(rustc.exists() && rustc.isFile() && rustc.canExecute())) {
-			rustc = new File(System.getProperty(USER_HOME_PROPERTY) + "/.cargo/bin/rustc"); //$NON-NLS-1$ 
-		}
-		if (!(rustc.exists() && rustc.isFile() && rustc.canExecute())) {
+	private String getSysrootPathBestGuess(IProgressMonitor monitor) {
+		String rustcPath = ToolLocator.locate(ToolLocator.RUSTC);
+		if (rustcPath.isEmpty()) {
 			return ""; //$NON-NLS-1$
 		}
+		File rustc = new File(rustcPath);
 		String[] command = new String[] { rustc.getAbsolutePath(), Messages.CorrosionPreferenceInitializer_29, Messages.CorrosionPreferenceInitializer_30 };
 		try {
-			Process process = Runtime.getRuntime().exec(command);
-			try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-				return in.readLine();
-			}
+			ProcessResult result = new ProcessRunner(command).timeout(PROBE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+					.run(monitor);
+			return result.isSuccessful() ? result.getFirstOutputLine() : Messages.CorrosionPreferenceInitializer_31;
 		} catch (IOException e) {
 			return Messages.CorrosionPreferenceInitializer_31;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Messages.CorrosionPreferenceInitializer_31;
 		}
 	}
 }
@@ -403,7 +403,7 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 			public void done(final IJobChangeEvent event) {
 				if (event.getResult() == Status.OK_STATUS) {
 					CorrosionPreferenceInitializer initializer = new CorrosionPreferenceInitializer();
-					initializer.initializeDefaultPreferences();
+					initializer.discoverDefaultPreferences();
 					Display.getDefault().asyncExec(() -> {
 						if (installButton.isDisposed()) {
 							return;
@@ -41,6 +41,54 @@ public class Messages extends NLS {
 	public static String ImplementationsSearchQuery_implementations;
 	public static String ImplementationsSearchQuery_oneReference;
 	public static String ImplementationsSearchQuery_severalReferences;
+	public static String LanguageServerPreferencePage_memoryLimit;
+	public static String LanguageServerPreferencePage_rlsBuild;
+	public static String LanguageServerPreferencePage_waitToBuild;
+	public static String LanguageServerPreferencePage_jobs;
+	public static String LanguageServerPreferencePage_buildOnSave;
+	public static String LanguageServerPreferencePage_allTargets;
+	public static String LanguageServerPreferencePage_cfgTest;
+	public static String LanguageServerPreferencePage_racerCompletion;
+	public static String LanguageServerPreferencePage_targetDir;
+	public static String LanguageServerPreferencePage_warmUp;
+	public static String LanguageServerPreferencePage_backend;
+	public static String LanguageServerPreferencePage_rustAnalyzerPath;
+	public static String LanguageServerPreferencePage_browse;
+	public static String LanguageServerConsoleFactory_name;
+	public static String LanguageServerConsoleFactory_droppedLines;
+	public static String LanguageServerRegistry_updatingConfiguration;
+	public static String LanguageServerTargetDirectory_markingDerived;
+	public static String LanguageServerWarmUp_startingLanguageServer;
+	public static String LargeFileModeIndicator_active;
+	public static String LanguageServerStatisticsView_method;
+	public static String LanguageServerStatisticsView_requests;
+	public static String LanguageServerStatisticsView_inFlight;
+	public static String LanguageServerStatisticsView_errors;
+	public static String LanguageServerStatisticsView_averageLatency;
+	public static String LanguageServerStatisticsView_medianLatency;
+	public static String LanguageServerStatisticsView_p95Latency;
+	public static String LanguageServerStatisticsView_maxLatency;
+	public static String LanguageServerStatisticsView_notifications;
+	public static String LanguageServerStatisticsView_notificationRate;
+	public static String LanguageServerStatisticsView_bytesSent;
+	public static String LanguageServerStatisticsView_bytesReceived;
+	public static String LanguageServerStatisticsView_reset;
+	public static String LanguageServerStatisticsView_export;
+	public static String LanguageServerStatisticsView_exportFailed;
+	public static String LanguageServerStatusContribution_label;
+	public static String LanguageServerStatusContribution_memory;
+	public static String LanguageServerStatusContribution_tooltip;
+	public static String LanguageServerStatusContribution_stopped;
+	public static String LanguageServerStatusContribution_running;
+	public static String LanguageServerStatusContribution_restarting;
+	public static String LanguageServerStatusContribution_failed;
+	public static String LanguageServerStatusContribution_unknown;
+	public static String LanguageServerSupervisor_crashed;
+	public static String LanguageServerSupervisor_gaveUp;
+	public static String LanguageServerSupervisor_memoryLimitExceeded;
+	public static String LanguageServerSupervisor_memoryLimitExceededNoProject;
+	public static String LanguageServerSupervisor_noProject;
+	public static String LanguageServerSupervisor_restarting;
 	public static String OptionSelector_title;
 	public static String OptionSelector_message;
 	public static String OptionSelector_arguments;
@@ -65,16 +113,19 @@ public class Messages extends NLS {
 	public static String RustDebugTab_InvalidProjectExecutablePath;
 	public static String RustDebugTab_useDefaultPathToExecutable;
 	public static String RustDebugTab_variables;
-	public static String RustManager_addingRLSPrevios;
-	public static String RustManager_addingRustAnalysisRustSrc;
+	public static String RustAnalyzerBackend_rustAnalyzerNotFound;
 	public static String RustManager_installingToolchain;
 	public static String RustManager_rootToolchainSelectionFailure;
 	public static String RustManager_settingDefaultToolchain;
 	public static String RustManager_settingRLSToolchain;
-	public static String RustManager_unableToAddComponent;
+	public static String SnippetLibrary_invalidSnippetFile;
 	public static String TextEditorPreferencePage_linkColorAndFontsPref;
 	public static String TextEditorPreferencePage_linkTextEditorsPref;
 	public static String TextEditorPreferencePage_linkTextMatePref;
+	public static String TextEditorPreferencePage_syntaxHighlighting;
+	public static String TextEditorPreferencePage_textMate;
+	public static String TextEditorPreferencePage_lexer;
+	public static String TextEditorPreferencePage_largeFileThreshold;
 	public static String ToggleBreakpointsTargetFactory_breakpoint;
 	public static String ToggleBreakpointsTargetFactory_breakpointTarget;
 	public static String CargoTestTab_testName;
@@ -94,10 +145,12 @@ public class Messages extends NLS {
 	public static String CargoExportWizardPage_toolchain;
 	public static String CargoExportWizardPage_currentToolchain;
 	public static String CargoExportWizardPage_outputLocation;
+	public static String CargoOptionsCache_loadingCargoOptions;
 	public static String CLIOption_lineIsNotHelp;
 	public static String CorrosionPreferenceInitializer_29;
 	public static String CorrosionPreferenceInitializer_30;
 	public static String CorrosionPreferenceInitializer_31;
+	public static String CorrosionPreferenceInitializer_discoveringTools;
 	public static String CorrosionPreferencePage_browse;
 	public static String CorrosionPreferencePage_browser;
 	public static String CorrosionPreferencePage_cannotInstallRustupCargo;
@@ -156,4 +209,6 @@ public class Messages extends NLS {
 	public static String RustManager_unableToInstallToolchain;
 	public static String RustManager_unableToSetDefaultToolchain;
 	public static String RustManager_toolchainDoesntIncludeRLS;
+	public static String ToolchainProvisioner_addingComponents;
+	public static String ToolchainProvisioner_provisioned;
 }
@@ -12,78 +12,62 @@
  *******************************************************************************/
 package org.eclipse.corrosion;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.corrosion.edit.LanguageServerRegistry;
+import org.eclipse.corrosion.process.ProcessResult;
+import org.eclipse.corrosion.process.ProcessRunner;
 import org.eclipse.jface.preference.IPreferenceStore;
-import org.eclipse.jface.text.IDocument;
-import org.eclipse.lsp4e.LanguageServiceAccessor;
-import org.eclipse.lsp4e.LanguageServiceAccessor.LSPDocumentInfo;
-import org.eclipse.lsp4j.DidChangeConfigurationParams;
-import org.eclipse.osgi.util.NLS;
-import org.eclipse.ui.IEditorInput;
-import org.eclipse.ui.IEditorReference;
-import org.eclipse.ui.IWorkbenchPage;
-import org.eclipse.ui.IWorkbenchWindow;
-import org.eclipse.ui.PartInitException;
-import org.eclipse.ui.PlatformUI;
-import org.eclipse.ui.texteditor.ITextEditor;
 
-@SuppressWarnings("restriction")
 public class RustManager {
 	private static final IPreferenceStore STORE = CorrosionPlugin.getDefault().getPreferenceStore();
+	private static final long SYSROOT_TIMEOUT_SECONDS = 30;
+	private static final Map<String, CachedSysroot> SYSROOT_CACHE = new HashMap<>();
 
 	private RustManager() {
 		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
 	}
 
-	public static String getDefaultToolchain() {
-		String rustup = STORE.getString(CorrosionPreferenceInitializer.RUSTUP_PATHS_PREFERENCE);
-		final String emptyResult = ""; //$NON-NLS-1$
-		if (rustup.isEmpty()) {
-			return emptyResult;
+	private static class CachedSysroot {
+		private final String path;
+		private final List<Long> stamp;
+
+		private CachedSysroot(String path, List<Long> stamp) {
+			this.path = path;
+			this.stamp = stamp;
 		}
+	}
 
-		try {
-			ProcessBuilder builder = new ProcessBuilder(rustup, "show"); //$NON-NLS-1$
-			Process process = builder.start();
-			if (process.waitFor() != 0) {
-				return emptyResult;
-			}
-			try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-				String line = in.readLine();
-				while (line != null) {
-					if (line.matches("^.*\\(default\\)$")) { //$NON-NLS-1$
-						if (line.matches("^nightly-\\d{4}-\\d{2}-\\d{2}.*$")) { //$NON-NLS-1$
-							return line.substring(0, 18);// "nightly-YYYY-MM-DD".length()==18
-						}
-						int splitIndex = line.indexOf('-');
-						if (splitIndex != -1) {
-							return line.substring(0, splitIndex);
-						}
-						return line;
-					}
-					line = in.readLine();
-				}
-			}
-		} catch (IOException e) {
-			CorrosionPlugin.logError(e);
-			return emptyResult;
-		} catch (InterruptedException e) {
-			CorrosionPlugin.logError(e);
-			Thread.currentThread().interrupt();
+	public static String getDefaultToolchain() {
+		return getDefaultToolchain(null);
+	}
+
+	/**
+	 * @param monitor
+	 *            the monitor whose cancellation kills rustup, may be
+	 *            <code>null</code>
+	 */
+	public static String getDefaultToolchain(IProgressMonitor monitor) {
+		String defaultToolchain = ToolchainInventoryService.getInventory(monitor).getDefaultToolchain();
+		if (defaultToolchain.isEmpty()) {
+			return defaultToolchain;
 		}
-		return emptyResult;
+		return ToolchainInventory.toShortName(defaultToolchain);
 	}
 
 	private static Job settingToolchainJob = null;
@@ -93,157 +77,103 @@ public class RustManager {
 			settingToolchainJob.cancel();
 		}
 		settingToolchainJob = new Job(Messages.RustManager_settingRLSToolchain) {
-			CommandJob currentCommandJob;
-
 			@Override
 			protected IStatus run(IProgressMonitor monitor) {
-				List<CommandJob> jobs = new ArrayList<>();
-				jobs.add(createRustupCommandJob(Messages.RustManager_installingToolchain,
-						NLS.bind(Messages.RustManager_unableToInstallToolchain, toolchainId), "toolchain", "install", //$NON-NLS-1$ //$NON-NLS-2$
-						toolchainId));
-				jobs.add(createRustupCommandJob(Messages.RustManager_settingDefaultToolchain,
-						NLS.bind(Messages.RustManager_unableToSetDefaultToolchain, toolchainId), "default", //$NON-NLS-1$
-						toolchainId));
-				jobs.add(createRustupCommandJob(Messages.RustManager_addingRLSPrevios,
-						NLS.bind(Messages.RustManager_toolchainDoesntIncludeRLS, toolchainId), "component", "add", //$NON-NLS-1$ //$NON-NLS-2$
-						"rls-preview")); //$NON-NLS-1$
-				jobs.add(createRustupCommandJob(Messages.RustManager_addingRustAnalysisRustSrc,
-						Messages.RustManager_unableToAddComponent, "component", //$NON-NLS-1$
-						"add", "rust-analysis")); //$NON-NLS-1$ //$NON-NLS-2$
-
-				for (CommandJob commandJob : jobs) {
-					currentCommandJob = commandJob;
-					if (currentCommandJob.run(monitor) == Status.CANCEL_STATUS) {
-						return Status.CANCEL_STATUS;
-					}
-					monitor.worked(1);
+				if (!ToolchainProvisioner.provision(toolchainId, monitor)) {
+					return Status.CANCEL_STATUS;
 				}
-				Map<String, String> updatedSettings = new HashMap<>();
-				updatedSettings.put("target", toolchainId); //$NON-NLS-1$
-				sendDidChangeConfigurationsMessage(updatedSettings);
+				LanguageServerRegistry.getInstance()
+						.updateConfiguration(Collections.singletonMap("target", toolchainId)); //$NON-NLS-1$
 				return Status.OK_STATUS;
 			}
-
-			@Override
-			protected void canceling() {
-				if (currentCommandJob != null) {
-					currentCommandJob.cancel();
-				}
-			}
 		};
 		settingToolchainJob.schedule();
 	}
 
-	private static void sendDidChangeConfigurationsMessage(Map<String, String> updatedSettings) {
-		DidChangeConfigurationParams params = new DidChangeConfigurationParams();
-		params.setSettings(updatedSettings);
-		LSPDocumentInfo info = infoFromOpenEditors();
-		if (info != null) {
-			info.getInitializedLanguageClient()
-					.thenAccept(languageServer -> languageServer.getWorkspaceService().didChangeConfiguration(params));
+	public static List<String> getToolchains() {
+		List<String> toolchainsList = new ArrayList<>();
+		for (String toolchain : ToolchainInventoryService.getInventory().getToolchains()) {
+			String shortName = ToolchainInventory.toShortName(toolchain);
+			if (!toolchainsList.contains(shortName)) {
+				toolchainsList.add(shortName);
+			}
 		}
+		return toolchainsList;
 	}
 
-	private static CommandJob createRustupCommandJob(String progressMessage, String errorMessage, String... arguments) {
-		String rustup = STORE.getString(CorrosionPreferenceInitializer.RUSTUP_PATHS_PREFERENCE);
-		if (rustup.isEmpty()) {
-			return null;
+	/**
+	 * Resolves the sysroot of a rustup toolchain, only forking rustup when it is
+	 * not cached yet or when the rustup settings or installed toolchains changed
+	 * since it was resolved
+	 *
+	 * @return the sysroot path or an empty string if it cannot be resolved
+	 */
+	private static synchronized String getRustupSysroot(String rustup, String toolchain) {
+		String key = rustup + ' ' + toolchain;
+		List<Long> stamp = Arrays.asList(lastModified(ToolchainInventoryService.getSettingsFile()),
+				lastModified(ToolchainInventoryService.getToolchainsDirectory()));
+		CachedSysroot cached = SYSROOT_CACHE.get(key);
+		if (cached != null && cached.stamp.equals(stamp) && new File(cached.path).isDirectory()) {
+			return cached.path;
 		}
-		String[] command = new String[arguments.length + 1];
-		command[0] = rustup;
-		System.arraycopy(arguments, 0, command, 1, arguments.length);
-		return new CommandJob(command, progressMessage,
-				Messages.RustManager_rootToolchainSelectionFailure, errorMessage, 0);
-	}
-
-	private static LSPDocumentInfo infoFromOpenEditors() {
-		for (IWorkbenchWindow window : PlatformUI.getWorkbench().getWorkbenchWindows()) {
-			for (IWorkbenchPage page : window.getPages()) {
-				for (IEditorReference editor : page.getEditorReferences()) {
-					IEditorInput input;
-					try {
-						input = editor.getEditorInput();
-					} catch (PartInitException e) {
-						continue;
-					}
-					if (input.getName().endsWith(".rs") && editor.getEditor(false) instanceof ITextEditor) { //$NON-NLS-1$
-						IDocument document = (((ITextEditor) editor.getEditor(false)).getDocumentProvider())
-								.getDocument(input);
-						Collection<LSPDocumentInfo> infos = LanguageServiceAccessor.getLSPDocumentInfosFor(document,
-								capabilities -> Boolean.TRUE.equals(capabilities.getReferencesProvider()));
-						if (!infos.isEmpty()) {
-							return infos.iterator().next();
-						}
-					}
-				}
+		String[] command = new String[] { rustup, "run", toolchain, "rustc", "--print", "sysroot" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		try {
+			ProcessResult result = new ProcessRunner(command).timeout(SYSROOT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+					.run(null);
+			if (result.isSuccessful() && !result.getFirstOutputLine().isEmpty()) {
+				SYSROOT_CACHE.put(key, new CachedSysroot(result.getFirstOutputLine(), stamp));
+				return result.getFirstOutputLine();
 			}
+		} catch (IOException e) {
+			// Caught with final return
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
-		return null;
+		SYSROOT_CACHE.remove(key);
+		return ""; //$NON-NLS-1$
 	}
 
-	public static List<String> getToolchains() {
-		List<String> toolchainsList = new ArrayList<>();
-		String rustup = STORE.getString(CorrosionPreferenceInitializer.RUSTUP_PATHS_PREFERENCE);
-		if (rustup.isEmpty()) {
-			return toolchainsList;
-		}
+	private static long lastModified(Path path) {
 		try {
-			ProcessBuilder builder = new ProcessBuilder(rustup, "show" ); //$NON-NLS-1$
-			Process process = builder.start();
-
-			if (process.waitFor() != 0) {
-				return toolchainsList;
-			}
-			try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-				String line = in.readLine();
-				while (line != null && !line.equals("active toolchain")) { //$NON-NLS-1$
-					String toolchain = ""; //$NON-NLS-1$
-					if (line.matches("^nightly-\\d{4}-\\d{2}-\\d{2}.*$")) { //$NON-NLS-1$
-						toolchain = line.substring(0, 18);// "nightly-YYYY-MM-DD".length()==18
-					} else if (line.matches("\\w+\\-.*")) { //$NON-NLS-1$
-						int splitIndex = line.indexOf('-');
-						if (splitIndex != -1) {
-							toolchain = line.substring(0, splitIndex);
-						}
-					}
-					if (!toolchain.isEmpty()) {
-						toolchainsList.add(toolchain);
-					}
-					line = in.readLine();
-				}
-			}
-		} catch (Exception e) { // Errors will be caught with empty return
-			CorrosionPlugin.logError(e);
+			return Files.getLastModifiedTime(path).toMillis();
+		} catch (IOException e) {
+			return -1;
 		}
-		return toolchainsList;
 	}
 
-	public static boolean setSystemProperties() {
-		CorrosionPlugin plugin = CorrosionPlugin.getDefault();
-		IPreferenceStore preferenceStore = plugin.getPreferenceStore();
+	private static String getSysrootPath() {
+		IPreferenceStore preferenceStore = CorrosionPlugin.getDefault().getPreferenceStore();
 		int rustSourceIndex = CorrosionPreferencePage.RUST_SOURCE_OPTIONS
 				.indexOf(preferenceStore.getString(CorrosionPreferenceInitializer.RUST_SOURCE_PREFERENCE));
 
-		String sysrootPath = ""; //$NON-NLS-1$
-
 		if (rustSourceIndex == 0) {
 			String rustup = preferenceStore.getString(CorrosionPreferenceInitializer.RUSTUP_PATHS_PREFERENCE);
 			String toolchain = preferenceStore.getString(CorrosionPreferenceInitializer.TOOLCHAIN_ID_PREFERENCE);
 			if (!(rustup.isEmpty() || toolchain.isEmpty())) {
-				String[] command = new String[] { rustup, "run", toolchain, "rustc", "--print", "sysroot" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
-				try {
-					Process process = Runtime.getRuntime().exec(command);
-					try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-						sysrootPath = in.readLine();
-					}
-				} catch (IOException e) {
-					// Caught with final return
-				}
+				return getRustupSysroot(rustup, toolchain);
 			}
 		} else if (rustSourceIndex == 1) {
-			sysrootPath = preferenceStore.getString(CorrosionPreferenceInitializer.SYSROOT_PATH_PREFERENCE);
+			return preferenceStore.getString(CorrosionPreferenceInitializer.SYSROOT_PATH_PREFERENCE);
 		}
+		return ""; //$NON-NLS-1$
+	}
 
+	/**
+	 * @return the sysroot set in the preferences when Rust is not installed with
+	 *         rustup, or an empty string. Unlike the rustup sysroot, it is known
+	 *         without forking rustc.
+	 */
+	public static String getConfiguredSysrootPath() {
+		IPreferenceStore preferenceStore = CorrosionPlugin.getDefault().getPreferenceStore();
+		if (CorrosionPreferencePage.RUST_SOURCE_OPTIONS
+				.indexOf(preferenceStore.getString(CorrosionPreferenceInitializer.RUST_SOURCE_PREFERENCE)) == 1) {
+			return preferenceStore.getString(CorrosionPreferenceInitializer.SYSROOT_PATH_PREFERENCE);
+		}
+		return ""; //$NON-NLS-1$
+	}
+
+	public static boolean setSystemProperties() {
+		String sysrootPath = getSysrootPath();
 		if (!sysrootPath.isEmpty()) {
 			System.setProperty("SYS_ROOT", sysrootPath); //$NON-NLS-1$
 			System.setProperty("LD_LIBRARY_PATH", sysrootPath + "/lib"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -259,7 +189,15 @@ public class RustManager {
 		return false;
 	}
 
-	public static String getRLS() {
+	/**
+	 * In rustup mode the <code>rls</code> binary of the toolchain is executed
+	 * directly rather than through the rustup proxy, the environment the proxy
+	 * would set up being provided by {@link #getRLSEnvironment()}.
+	 *
+	 * @return the command starting the Rust Language Server, or an empty list if
+	 *         it is not configured
+	 */
+	public static List<String> getRLSCommand() {
 		CorrosionPlugin plugin = CorrosionPlugin.getDefault();
 		IPreferenceStore preferenceStore = plugin.getPreferenceStore();
 		int rustSourceIndex = CorrosionPreferencePage.RUST_SOURCE_OPTIONS
@@ -269,18 +207,61 @@ public class RustManager {
 			String rustup = preferenceStore.getString(CorrosionPreferenceInitializer.RUSTUP_PATHS_PREFERENCE);
 			String toolchain = preferenceStore.getString(CorrosionPreferenceInitializer.TOOLCHAIN_ID_PREFERENCE);
 			if (!(rustup.isEmpty() || toolchain.isEmpty())) {
-				return rustup + " run " + toolchain + " rls"; //$NON-NLS-1$ //$NON-NLS-2$
+				String installedToolchain = ToolchainInventoryService.getInventory().findToolchain(toolchain);
+				if (installedToolchain != null) {
+					Path rls = ToolchainInventoryService.getToolchainsDirectory().resolve(installedToolchain)
+							.resolve("bin").resolve(Platform.getOS().equals(Platform.OS_WIN32) ? "rls.exe" : "rls"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					if (Files.isExecutable(rls)) {
+						return Collections.singletonList(rls.toString());
+					}
+				}
+				return Arrays.asList(rustup, "run", toolchain, "rls"); //$NON-NLS-1$ //$NON-NLS-2$
 			}
 		} else if (rustSourceIndex == 1) {
 			String rls = preferenceStore.getString(CorrosionPreferenceInitializer.RLS_PATH_PREFERENCE);
 			if (!rls.isEmpty()) {
-				return rls;
+				return Collections.singletonList(rls);
 			}
 		}
 
 		CorrosionPlugin.getDefault().getLog()
 				.log(new Status(IStatus.ERROR, CorrosionPlugin.getDefault().getBundle().getSymbolicName(),
 						Messages.RLSStreamConnectionProvider_rlsNotFound));
-		return ""; //$NON-NLS-1$
+		return Collections.emptyList();
+	}
+
+	/**
+	 * @return the variables to add to the environment of the Rust Language
+	 *         Server so that it uses the selected toolchain and sysroot
+	 */
+	public static Map<String, String> getRLSEnvironment() {
+		Map<String, String> environment = new HashMap<>();
+		IPreferenceStore preferenceStore = CorrosionPlugin.getDefault().getPreferenceStore();
+		if (CorrosionPreferencePage.RUST_SOURCE_OPTIONS.indexOf(
+				preferenceStore.getString(CorrosionPreferenceInitializer.RUST_SOURCE_PREFERENCE)) == 0) {
+			String toolchain = preferenceStore.getString(CorrosionPreferenceInitializer.TOOLCHAIN_ID_PREFERENCE);
+			if (!toolchain.isEmpty()) {
+				environment.put("RUSTUP_TOOLCHAIN", toolchain); //$NON-NLS-1$
+			}
+		}
+		String sysrootPath = getSysrootPath();
+		if (sysrootPath.isEmpty()) {
+			return environment;
+		}
+		environment.put("SYSROOT", sysrootPath); //$NON-NLS-1$
+		String binPath = new File(sysrootPath, "bin").getAbsolutePath(); //$NON-NLS-1$
+		String libPath = new File(sysrootPath, "lib").getAbsolutePath(); //$NON-NLS-1$
+		prependPath(environment, "PATH", binPath); //$NON-NLS-1$
+		if (Platform.getOS().equals(Platform.OS_MACOSX)) {
+			prependPath(environment, "DYLD_LIBRARY_PATH", libPath); //$NON-NLS-1$
+		} else if (!Platform.getOS().equals(Platform.OS_WIN32)) {
+			prependPath(environment, "LD_LIBRARY_PATH", libPath); //$NON-NLS-1$
+		}
+		return environment;
+	}
+
+	private static void prependPath(Map<String, String> environment, String variable, String path) {
+		String current = System.getenv(variable);
+		environment.put(variable, current == null || current.isEmpty() ? path : path + File.pathSeparator + current);
 	}
 }
@@ -0,0 +1,177 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Locates executables by scanning the <code>PATH</code> directories and the
+ * cargo binaries directory directly instead of forking <code>which</code> or
+ * <code>where</code>. Resolved locations are cached until the modification time
+ * of one of the scanned directories changes.
+ */
+public class ToolLocator {
+	public static final String CARGO = "cargo"; //$NON-NLS-1$
+	public static final String RUSTUP = "rustup"; //$NON-NLS-1$
+	public static final String RLS = "rls"; //$NON-NLS-1$
+	public static final String RUSTC = "rustc"; //$NON-NLS-1$
+	public static final String GDB = "gdb"; //$NON-NLS-1$
+	public static final String RUST_GDB = "rust-gdb"; //$NON-NLS-1$
+	public static final String RUST_ANALYZER = "rust-analyzer"; //$NON-NLS-1$
+
+	private static final Map<String, CachedLocation> CACHE = new HashMap<>();
+
+	private ToolLocator() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	private static class CachedLocation {
+		private final String location;
+		private final Map<Path, Long> scannedDirectories;
+
+		private CachedLocation(String location, Map<Path, Long> scannedDirectories) {
+			this.location = location;
+			this.scannedDirectories = scannedDirectories;
+		}
+
+		private boolean isValid() {
+			for (Entry<Path, Long> directory : scannedDirectories.entrySet()) {
+				if (lastModified(directory.getKey()) != directory.getValue()) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Finds the absolute path of an executable in the <code>PATH</code>
+	 * directories, falling back to the cargo binaries directory
+	 *
+	 * @param command
+	 *            the name of the executable, without extension
+	 * @return the absolute path of the executable or an empty string if not found
+	 */
+	public static synchronized String locate(String command) {
+		List<Path> searchDirectories = getSearchDirectories();
+		String key = command + File.pathSeparatorChar + searchDirectories;
+		CachedLocation cached = CACHE.get(key);
+		if (cached == null || !cached.isValid()) {
+			cached = scan(command, searchDirectories);
+			CACHE.put(key, cached);
+		}
+		return cached.location;
+	}
+
+	/**
+	 * @param command
+	 *            the name of the executable, without extension
+	 * @return the directory containing the executable or an empty string if not
+	 *         found
+	 */
+	public static String locateDirectory(String command) {
+		String location = locate(command);
+		if (location.isEmpty()) {
+			return location;
+		}
+		String parentDirectory = new File(location).getParent();
+		return parentDirectory != null ? parentDirectory : ""; //$NON-NLS-1$
+	}
+
+	/**
+	 * @return the directory where cargo installs binaries, by default
+	 *         <code>~/.cargo/bin</code>
+	 */
+	public static Path getCargoBinDirectory() {
+		String cargoHome = System.getenv("CARGO_HOME"); //$NON-NLS-1$
+		if (cargoHome != null && !cargoHome.isEmpty()) {
+			return Paths.get(cargoHome, "bin"); //$NON-NLS-1$
+		}
+		return Paths.get(System.getProperty("user.home"), ".cargo", "bin"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	private static CachedLocation scan(String command, List<Path> searchDirectories) {
+		Map<Path, Long> scannedDirectories = new LinkedHashMap<>();
+		List<String> fileNames = getExecutableNames(command);
+		for (Path directory : searchDirectories) {
+			scannedDirectories.put(directory, lastModified(directory));
+			for (String fileName : fileNames) {
+				Path candidate = directory.resolve(fileName);
+				if (Files.isRegularFile(candidate) && Files.isExecutable(candidate)) {
+					return new CachedLocation(candidate.toAbsolutePath().toString(), scannedDirectories);
+				}
+			}
+		}
+		return new CachedLocation("", scannedDirectories); //$NON-NLS-1$
+	}
+
+	private static List<Path> getSearchDirectories() {
+		List<Path> directories = new ArrayList<>();
+		String path = System.getenv("PATH"); //$NON-NLS-1$
+		if (path != null) {
+			for (String entry : path.split(File.pathSeparator)) {
+				if (entry.isEmpty()) {
+					continue;
+				}
+				try {
+					Path directory = Paths.get(entry);
+					if (!directories.contains(directory)) {
+						directories.add(directory);
+					}
+				} catch (InvalidPathException e) {
+					// Ignore malformed PATH entries
+				}
+			}
+		}
+		Path cargoBin = getCargoBinDirectory();
+		if (!directories.contains(cargoBin)) {
+			directories.add(cargoBin);
+		}
+		return directories;
+	}
+
+	private static List<String> getExecutableNames(String command) {
+		if (!Platform.getOS().equals(Platform.OS_WIN32)) {
+			return Collections.singletonList(command);
+		}
+		List<String> names = new ArrayList<>();
+		String pathExt = System.getenv("PATHEXT"); //$NON-NLS-1$
+		if (pathExt == null || pathExt.isEmpty()) {
+			pathExt = ".EXE;.BAT;.CMD"; //$NON-NLS-1$
+		}
+		for (String extension : pathExt.split(File.pathSeparator)) {
+			names.add(command + extension.toLowerCase());
+		}
+		names.add(command);
+		return names;
+	}
+
+	private static long lastModified(Path directory) {
+		try {
+			return Files.getLastModifiedTime(directory).toMillis();
+		} catch (IOException e) {
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,218 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable snapshot of the toolchains known to rustup, as reported once by
+ * <code>rustup show</code> and completed with the component lists found in the
+ * toolchains directory.
+ */
+public final class ToolchainInventory {
+	public static final ToolchainInventory EMPTY = new ToolchainInventory(Collections.emptyList(), "", //$NON-NLS-1$
+			Collections.emptyList(), Collections.emptyMap());
+
+	private static final Pattern ANNOTATION_PATTERN = Pattern.compile("^(\\S+)\\s*\\((.*)\\)$"); //$NON-NLS-1$
+	private static final Pattern NIGHTLY_PATTERN = Pattern.compile("^nightly-\\d{4}-\\d{2}-\\d{2}.*$"); //$NON-NLS-1$
+	private static final Pattern SEPARATOR_PATTERN = Pattern.compile("^-+$"); //$NON-NLS-1$
+
+	private static final String INSTALLED_TOOLCHAINS_SECTION = "installed toolchains"; //$NON-NLS-1$
+	private static final String INSTALLED_TARGETS_SECTION = "installed targets for active toolchain"; //$NON-NLS-1$
+	private static final String ACTIVE_TOOLCHAIN_SECTION = "active toolchain"; //$NON-NLS-1$
+
+	private final List<String> toolchains;
+	private final String defaultToolchain;
+	private final List<String> targets;
+	private final Map<String, Set<String>> components;
+
+	private ToolchainInventory(List<String> toolchains, String defaultToolchain, List<String> targets,
+			Map<String, Set<String>> components) {
+		this.toolchains = toolchains;
+		this.defaultToolchain = defaultToolchain;
+		this.targets = targets;
+		this.components = components;
+	}
+
+	/**
+	 * Builds an inventory from the output of <code>rustup show</code>
+	 *
+	 * @param rustupShowLines
+	 *            the lines printed by <code>rustup show</code>
+	 * @param toolchainsDirectory
+	 *            the rustup toolchains directory used to look up installed
+	 *            components, may be <code>null</code>
+	 * @return the parsed inventory
+	 */
+	public static ToolchainInventory parse(List<String> rustupShowLines, Path toolchainsDirectory) {
+		Set<String> toolchains = new LinkedHashSet<>();
+		List<String> targets = new ArrayList<>();
+		String defaultToolchain = ""; //$NON-NLS-1$
+		String section = ""; //$NON-NLS-1$
+		boolean activeToolchainRead = false;
+
+		for (int i = 0; i < rustupShowLines.size(); i++) {
+			String line = rustupShowLines.get(i).trim();
+			if (i + 1 < rustupShowLines.size() && SEPARATOR_PATTERN.matcher(rustupShowLines.get(i + 1).trim()).matches()) {
+				section = line;
+				i++;
+				continue;
+			}
+			if (line.isEmpty()) {
+				continue;
+			}
+			Matcher matcher = ANNOTATION_PATTERN.matcher(line);
+			boolean isDefault = matcher.matches() && matcher.group(2).contains("default"); //$NON-NLS-1$
+			if (INSTALLED_TARGETS_SECTION.equals(section)) {
+				targets.add(line);
+			} else if (INSTALLED_TOOLCHAINS_SECTION.equals(section)
+					|| (ACTIVE_TOOLCHAIN_SECTION.equals(section) && !activeToolchainRead)
+					// a single toolchain is printed without any section
+					|| (section.isEmpty() && isDefault)) {
+				activeToolchainRead |= ACTIVE_TOOLCHAIN_SECTION.equals(section);
+				String name = matcher.matches() ? matcher.group(1) : line;
+				if (isDefault) {
+					defaultToolchain = name;
+				}
+				toolchains.add(name);
+			}
+		}
+
+		Map<String, Set<String>> components = new HashMap<>();
+		if (toolchainsDirectory != null) {
+			for (String toolchain : toolchains) {
+				components.put(toolchain, readComponents(toolchainsDirectory.resolve(toolchain)));
+			}
+		}
+		return new ToolchainInventory(Collections.unmodifiableList(new ArrayList<>(toolchains)), defaultToolchain,
+				Collections.unmodifiableList(targets), Collections.unmodifiableMap(components));
+	}
+
+	private static Set<String> readComponents(Path toolchainDirectory) {
+		Path componentsFile = toolchainDirectory.resolve("lib").resolve("rustlib").resolve("components"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		if (!Files.isRegularFile(componentsFile)) {
+			return Collections.emptySet();
+		}
+		try {
+			Set<String> result = new LinkedHashSet<>();
+			for (String component : Files.readAllLines(componentsFile)) {
+				if (!component.trim().isEmpty()) {
+					result.add(component.trim());
+				}
+			}
+			return Collections.unmodifiableSet(result);
+		} catch (IOException e) {
+			return Collections.emptySet();
+		}
+	}
+
+	/**
+	 * Converts a full toolchain name such as
+	 * <code>stable-x86_64-unknown-linux-gnu</code> to the identifier used in the
+	 * preferences, such as <code>stable</code> or <code>nightly-2018-01-01</code>
+	 *
+	 * @param toolchain
+	 *            the full toolchain name
+	 * @return the short toolchain identifier
+	 */
+	public static String toShortName(String toolchain) {
+		if (NIGHTLY_PATTERN.matcher(toolchain).matches()) {
+			return toolchain.substring(0, 18);// "nightly-YYYY-MM-DD".length()==18
+		}
+		int splitIndex = toolchain.indexOf('-');
+		if (splitIndex != -1) {
+			return toolchain.substring(0, splitIndex);
+		}
+		return toolchain;
+	}
+
+	/**
+	 * @return the full names of the installed toolchains
+	 */
+	public List<String> getToolchains() {
+		return toolchains;
+	}
+
+	/**
+	 * @return the full name of the default toolchain, or an empty string if none
+	 *         is set
+	 */
+	public String getDefaultToolchain() {
+		return defaultToolchain;
+	}
+
+	/**
+	 * @return the targets installed for the active toolchain
+	 */
+	public List<String> getTargets() {
+		return targets;
+	}
+
+	/**
+	 * Finds the installed toolchain matching the given identifier, either by its
+	 * full name or by its short name.
+	 *
+	 * @param toolchainId
+	 *            the full or short toolchain identifier
+	 * @return the full toolchain name or <code>null</code> if not installed
+	 */
+	public String findToolchain(String toolchainId) {
+		if (toolchains.contains(toolchainId)) {
+			return toolchainId;
+		}
+		for (String toolchain : toolchains) {
+			if (toShortName(toolchain).equals(toolchainId)) {
+				return toolchain;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param toolchainId
+	 *            the full or short toolchain identifier
+	 * @return the components installed in the toolchain, as listed by rustup
+	 *         with their host triple suffix
+	 */
+	public Set<String> getComponents(String toolchainId) {
+		String toolchain = findToolchain(toolchainId);
+		if (toolchain == null || !components.containsKey(toolchain)) {
+			return Collections.emptySet();
+		}
+		return components.get(toolchain);
+	}
+
+	/**
+	 * @param toolchainId
+	 *            the full or short toolchain identifier
+	 * @param component
+	 *            the component name, such as <code>rls-preview</code>
+	 * @return whether the component is installed in the given toolchain
+	 */
+	public boolean hasComponent(String toolchainId, String component) {
+		for (String installed : getComponents(toolchainId)) {
+			if (installed.equals(component) || installed.startsWith(component + '-')) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,129 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.corrosion.process.ProcessResult;
+import org.eclipse.corrosion.process.ProcessRunner;
+
+/**
+ * Keeps the {@link ToolchainInventory} in memory so that callers do not fork
+ * <code>rustup show</code> each time they need the list of toolchains. The
+ * inventory is re-read when the rustup executable, the rustup settings file or
+ * the toolchains directory change.
+ */
+public class ToolchainInventoryService {
+	private static final long RUSTUP_SHOW_TIMEOUT_SECONDS = 30;
+
+	private static ToolchainInventory inventory;
+	private static List<Object> inventoryStamp;
+
+	private ToolchainInventoryService() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	/**
+	 * @return the inventory of the rustup set in the preferences, read from
+	 *         memory unless the rustup installation changed
+	 */
+	public static ToolchainInventory getInventory() {
+		return getInventory(null);
+	}
+
+	/**
+	 * @param monitor
+	 *            the monitor whose cancellation kills rustup, may be
+	 *            <code>null</code>. An inventory read while canceled is empty
+	 *            and not kept.
+	 * @see #getInventory()
+	 */
+	public static synchronized ToolchainInventory getInventory(IProgressMonitor monitor) {
+		String rustup = CorrosionPlugin.getDefault().getPreferenceStore()
+				.getString(CorrosionPreferenceInitializer.RUSTUP_PATHS_PREFERENCE);
+		if (rustup.isEmpty()) {
+			return ToolchainInventory.EMPTY;
+		}
+		List<Object> stamp = computeStamp(rustup);
+		if (inventory == null || !stamp.equals(inventoryStamp)) {
+			ToolchainInventory readInventory = readInventory(rustup, monitor);
+			if (monitor != null && monitor.isCanceled()) {
+				return readInventory;
+			}
+			inventory = readInventory;
+			inventoryStamp = stamp;
+		}
+		return inventory;
+	}
+
+	/**
+	 * Forces the next call to {@link #getInventory()} to query rustup again. To be
+	 * called after running rustup commands that alter the installed toolchains or
+	 * components.
+	 */
+	public static synchronized void invalidate() {
+		inventory = null;
+		inventoryStamp = null;
+	}
+
+	public static Path getRustupHome() {
+		String rustupHome = System.getenv("RUSTUP_HOME"); //$NON-NLS-1$
+		if (rustupHome != null && !rustupHome.isEmpty()) {
+			return Paths.get(rustupHome);
+		}
+		return Paths.get(System.getProperty("user.home"), ".rustup"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public static Path getSettingsFile() {
+		return getRustupHome().resolve("settings.toml"); //$NON-NLS-1$
+	}
+
+	public static Path getToolchainsDirectory() {
+		return getRustupHome().resolve("toolchains"); //$NON-NLS-1$
+	}
+
+	private static List<Object> computeStamp(String rustup) {
+		return Arrays.asList(rustup, lastModified(Paths.get(rustup)), lastModified(getSettingsFile()),
+				lastModified(getToolchainsDirectory()));
+	}
+
+	private static long lastModified(Path path) {
+		try {
+			return Files.getLastModifiedTime(path).toMillis();
+		} catch (IOException e) {
+			return -1;
+		}
+	}
+
+	private static ToolchainInventory readInventory(String rustup, IProgressMonitor monitor) {
+		try {
+			ProcessResult result = new ProcessRunner(rustup, "show") //$NON-NLS-1$
+					.timeout(RUSTUP_SHOW_TIMEOUT_SECONDS, TimeUnit.SECONDS).run(monitor);
+			if (!result.isSuccessful()) {
+				return ToolchainInventory.EMPTY;
+			}
+			return ToolchainInventory.parse(result.getOutputLines(), getToolchainsDirectory());
+		} catch (IOException e) {
+			CorrosionPlugin.logError(e);
+		} catch (InterruptedException e) {
+			CorrosionPlugin.logError(e);
+			Thread.currentThread().interrupt();
+		}
+		return ToolchainInventory.EMPTY;
+	}
+}
@@ -0,0 +1,203 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.corrosion.process.ProcessResult;
+import org.eclipse.corrosion.process.ProcessRunner;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Installs a toolchain with the components required by the Rust Language
+ * Server and makes it the default one, using as few rustup invocations as
+ * possible. Each rustup call resolves the channel manifest again, so the
+ * toolchain and its components are installed together and nothing the
+ * {@link ToolchainInventory} reports as installed is requested again.
+ */
+public class ToolchainProvisioner {
+	public static final List<String> REQUIRED_COMPONENTS = Collections
+			.unmodifiableList(Arrays.asList("rls-preview", "rust-analysis")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private ToolchainProvisioner() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	/**
+	 * A single rustup invocation of the provisioning
+	 */
+	public static class Step {
+		private final String label;
+		private final String errorMessage;
+		private final String[] command;
+		private final List<Step> fallbackSteps;
+
+		private Step(String label, String errorMessage, String[] command, List<Step> fallbackSteps) {
+			this.label = label;
+			this.errorMessage = errorMessage;
+			this.command = command;
+			this.fallbackSteps = fallbackSteps;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+		public List<String> getCommand() {
+			return Collections.unmodifiableList(Arrays.asList(command));
+		}
+
+		/**
+		 * @return the steps to run instead when this step fails because rustup is
+		 *         too old to support it
+		 */
+		public List<Step> getFallbackSteps() {
+			return fallbackSteps;
+		}
+	}
+
+	/**
+	 * Computes the rustup invocations needed for the given toolchain to be
+	 * installed with its required components and set as the default toolchain
+	 *
+	 * @param rustup
+	 *            the path of the rustup executable
+	 * @param toolchainId
+	 *            the toolchain identifier, such as <code>stable</code>
+	 * @param inventory
+	 *            the currently installed toolchains
+	 * @return the steps to run in order, empty if nothing needs to change
+	 */
+	public static List<Step> planSteps(String rustup, String toolchainId, ToolchainInventory inventory) {
+		List<Step> steps = new ArrayList<>();
+		String installedToolchain = inventory.findToolchain(toolchainId);
+		if (installedToolchain == null) {
+			List<String> install = new ArrayList<>(Arrays.asList(rustup, "toolchain", "install", toolchainId)); //$NON-NLS-1$ //$NON-NLS-2$
+			for (String component : REQUIRED_COMPONENTS) {
+				install.add("--component"); //$NON-NLS-1$
+				install.add(component);
+			}
+			// rustup versions older than 1.20 do not accept components on install
+			List<Step> fallbackSteps = Arrays.asList(createInstallStep(toolchainId, new String[] { rustup,
+					"toolchain", "install", toolchainId }, Collections.emptyList()), //$NON-NLS-1$ //$NON-NLS-2$
+					createComponentsStep(rustup, toolchainId, REQUIRED_COMPONENTS));
+			steps.add(createInstallStep(toolchainId, install.toArray(new String[install.size()]),
+					fallbackSteps));
+		} else {
+			List<String> missingComponents = new ArrayList<>();
+			for (String component : REQUIRED_COMPONENTS) {
+				if (!inventory.hasComponent(installedToolchain, component)) {
+					missingComponents.add(component);
+				}
+			}
+			if (!missingComponents.isEmpty()) {
+				steps.add(createComponentsStep(rustup, toolchainId, missingComponents));
+			}
+		}
+		if (installedToolchain == null || !installedToolchain.equals(inventory.getDefaultToolchain())) {
+			steps.add(new Step(Messages.RustManager_settingDefaultToolchain,
+					NLS.bind(Messages.RustManager_unableToSetDefaultToolchain, toolchainId),
+					new String[] { rustup, "default", toolchainId }, Collections.emptyList())); //$NON-NLS-1$
+		}
+		return steps;
+	}
+
+	private static Step createInstallStep(String toolchainId, String[] command, List<Step> fallbackSteps) {
+		return new Step(Messages.RustManager_installingToolchain,
+				NLS.bind(Messages.RustManager_unableToInstallToolchain, toolchainId), command, fallbackSteps);
+	}
+
+	private static Step createComponentsStep(String rustup, String toolchainId, List<String> components) {
+		List<String> command = new ArrayList<>(
+				Arrays.asList(rustup, "component", "add", "--toolchain", toolchainId)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		command.addAll(components);
+		return new Step(NLS.bind(Messages.ToolchainProvisioner_addingComponents, String.join(", ", components)), //$NON-NLS-1$
+				NLS.bind(Messages.RustManager_toolchainDoesntIncludeRLS, toolchainId),
+				command.toArray(new String[command.size()]), Collections.emptyList());
+	}
+
+	/**
+	 * Installs the toolchain with its required components and sets it as the
+	 * default toolchain, showing an error to the user if a step fails. The time
+	 * spent in each step is written to the log.
+	 *
+	 * @param toolchainId
+	 *            the toolchain identifier, such as <code>stable</code>
+	 * @param monitor
+	 *            the progress monitor, canceling it kills the running rustup
+	 *            process
+	 * @return whether the toolchain is ready to be used
+	 */
+	public static boolean provision(String toolchainId, IProgressMonitor monitor) {
+		String rustup = CorrosionPlugin.getDefault().getPreferenceStore()
+				.getString(CorrosionPreferenceInitializer.RUSTUP_PATHS_PREFERENCE);
+		if (rustup.isEmpty()) {
+			return false;
+		}
+		List<Step> steps = planSteps(rustup, toolchainId, ToolchainInventoryService.getInventory());
+		SubMonitor subMonitor = SubMonitor.convert(monitor, steps.size());
+		List<String> timings = new ArrayList<>();
+		long start = System.currentTimeMillis();
+		try {
+			for (Step step : steps) {
+				if (!runStep(step, subMonitor.newChild(1), timings)) {
+					return false;
+				}
+			}
+		} finally {
+			if (!steps.isEmpty()) {
+				ToolchainInventoryService.invalidate();
+			}
+		}
+		CorrosionPlugin.getDefault().getLog()
+				.log(new Status(IStatus.INFO, CorrosionPlugin.PLUGIN_ID,
+						NLS.bind(Messages.ToolchainProvisioner_provisioned, new Object[] { toolchainId,
+								System.currentTimeMillis() - start, String.join(", ", timings) }))); //$NON-NLS-1$
+		return true;
+	}
+
+	private static boolean runStep(Step step, SubMonitor monitor, List<String> timings) {
+		monitor.setTaskName(step.label);
+		try {
+			ProcessResult result = new ProcessRunner(step.command).onErrorLine(monitor::subTask).run(monitor);
+			timings.add(step.label + ' ' + result.getDurationMillis() + "ms"); //$NON-NLS-1$
+			if (result.isSuccessful()) {
+				return true;
+			}
+			if (result.isCanceled()) {
+				return false;
+			}
+			if (!step.fallbackSteps.isEmpty()) {
+				SubMonitor fallbackMonitor = SubMonitor.convert(monitor, step.fallbackSteps.size());
+				for (Step fallbackStep : step.fallbackSteps) {
+					if (!runStep(fallbackStep, fallbackMonitor.newChild(1), timings)) {
+						return false;
+					}
+				}
+				return true;
+			}
+			CorrosionPlugin.showError(Messages.RustManager_rootToolchainSelectionFailure,
+					step.errorMessage + '\n' + result.getErrorOutput());
+		} catch (IOException e) {
+			CorrosionPlugin.showError(Messages.RustManager_rootToolchainSelectionFailure, step.errorMessage, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return false;
+	}
+}
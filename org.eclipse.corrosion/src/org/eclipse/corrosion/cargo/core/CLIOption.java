@@ -14,23 +14,28 @@ package org.eclipse.corrosion.cargo.core;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import org.eclipse.corrosion.Messages;
 
 public class CLIOption {
+	static final Pattern OPTION_LINE_PATTERN = Pattern.compile("\\s*-+.*"); //$NON-NLS-1$
+	private static final Pattern COLUMN_SEPARATOR_PATTERN = Pattern.compile("  "); //$NON-NLS-1$
+	private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s"); //$NON-NLS-1$
+
 	private String flag;
 	private String[] arguments;
 	private String description;
 
 	public CLIOption(List<String> lines) {
-		if (lines == null || lines.isEmpty() || !lines.get(0).matches("\\s*-+.*")) { //$NON-NLS-1$
+		if (lines == null || lines.isEmpty() || !OPTION_LINE_PATTERN.matcher(lines.get(0)).matches()) {
 			throw new IllegalArgumentException(Messages.CLIOption_lineIsNotHelp);
 		}
 
-		String[] firstLine = lines.get(0).trim().split("  "); //$NON-NLS-1$
+		String[] firstLine = COLUMN_SEPARATOR_PATTERN.split(lines.get(0).trim());
 		int start = firstLine[0].lastIndexOf(", "); //$NON-NLS-1$
 		start = start == -1 ? 0 : start + 2;
-		String[] flagSection = firstLine[0].substring(start).split("\\s"); //$NON-NLS-1$
+		String[] flagSection = WHITESPACE_PATTERN.split(firstLine[0].substring(start));
 		flag = flagSection[0];
 		arguments = Arrays.copyOfRange(flagSection, 1, flagSection.length);
 
@@ -0,0 +1,184 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.cargo.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.corrosion.ToolchainInventoryService;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Keeps the parsed <code>cargo &lt;subcommand&gt; --help</code> options in
+ * memory and in the plugin state location, so that the options dialogs do not
+ * have to fork cargo. Entries are keyed by the cargo binary and invalidated
+ * when its size or modification time, or the rustup settings, change.
+ */
+public class CargoOptionsCache {
+	private static final String CACHE_FILE = "cargoOptions.json"; //$NON-NLS-1$
+	private static final List<String> CACHED_SUBCOMMANDS = Collections.unmodifiableList(Arrays.asList("run", "test")); //$NON-NLS-1$ //$NON-NLS-2$
+	private static final Gson GSON = new Gson();
+	private static final Type CACHE_TYPE = new TypeToken<Map<String, CachedOptions>>() {
+	}.getType();
+
+	private static final Map<String, CompletableFuture<CachedOptions>> OPTIONS = new ConcurrentHashMap<>();
+	private static Map<String, CachedOptions> persisted;
+
+	private CargoOptionsCache() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	private static class CachedOptions {
+		private String stamp;
+		private List<CLIOption> options;
+
+		private CachedOptions(String stamp, List<CLIOption> options) {
+			this.stamp = stamp;
+			this.options = options;
+		}
+
+		private boolean isValid(String currentStamp) {
+			return currentStamp.equals(stamp) && options != null && !options.isEmpty();
+		}
+	}
+
+	/**
+	 * @param subCommand
+	 *            the cargo sub-command, such as <code>run</code>
+	 * @return the options of the sub-command for the cargo set in the
+	 *         preferences, only forking cargo when they are not cached yet.
+	 *         Concurrent callers for the same sub-command wait for a single
+	 *         cargo process.
+	 */
+	public static List<CLIOption> getOptions(String subCommand) {
+		String cargo = CargoTools.getCargoCommand();
+		File cargoFile = new File(cargo);
+		if (cargo.isEmpty() || !cargoFile.isFile()) {
+			return Collections.emptyList();
+		}
+		String key = cargo + ' ' + subCommand;
+		String stamp = computeStamp(cargoFile);
+		CompletableFuture<CachedOptions> loading = new CompletableFuture<>();
+		CompletableFuture<CachedOptions> future = OPTIONS.compute(key,
+				(k, current) -> current == null || isStale(current, stamp) ? loading : current);
+		if (future == loading) {
+			// cargo is forked outside of the map, only the thread that
+			// registered the future loads the options
+			try {
+				loading.complete(load(key, cargo, subCommand, stamp));
+			} catch (RuntimeException e) {
+				loading.completeExceptionally(e);
+				throw e;
+			}
+		}
+		CachedOptions cached = future.join();
+		return cached.options == null ? Collections.emptyList() : Collections.unmodifiableList(cached.options);
+	}
+
+	/**
+	 * @return <code>false</code> while the options are still loading, so that
+	 *         they are not loaded twice
+	 */
+	private static boolean isStale(CompletableFuture<CachedOptions> future, String stamp) {
+		return future.isDone() && (future.isCompletedExceptionally() || !future.join().isValid(stamp));
+	}
+
+	private static CachedOptions load(String key, String cargo, String subCommand, String stamp) {
+		CachedOptions cached = getPersisted(key);
+		if (cached != null && cached.isValid(stamp)) {
+			return cached;
+		}
+		List<CLIOption> options = CargoTools.readOptions(cargo, subCommand);
+		cached = new CachedOptions(stamp, options);
+		if (!options.isEmpty()) {
+			persist(key, cached);
+		}
+		return cached;
+	}
+
+	/**
+	 * Fills the cache in the background for the sub-commands offered in the
+	 * launch configuration tabs.
+	 */
+	public static void scheduleWarmUp() {
+		Job job = new Job(Messages.CargoOptionsCache_loadingCargoOptions) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				for (String subCommand : CACHED_SUBCOMMANDS) {
+					if (monitor.isCanceled()) {
+						return Status.CANCEL_STATUS;
+					}
+					getOptions(subCommand);
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.schedule();
+	}
+
+	private static String computeStamp(File cargoFile) {
+		File settings = ToolchainInventoryService.getSettingsFile().toFile();
+		return cargoFile.length() + ":" + cargoFile.lastModified() + ":" + settings.lastModified(); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static File getCacheFile() {
+		return CorrosionPlugin.getDefault().getStateLocation().append(CACHE_FILE).toFile();
+	}
+
+	private static synchronized CachedOptions getPersisted(String key) {
+		if (persisted == null) {
+			persisted = new HashMap<>();
+			File file = getCacheFile();
+			if (file.isFile()) {
+				try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+					Map<String, CachedOptions> entries = GSON.fromJson(reader, CACHE_TYPE);
+					if (entries != null) {
+						persisted.putAll(entries);
+					}
+				} catch (IOException | JsonParseException e) {
+					// Caught with empty cache, rewritten on next save
+				}
+			}
+		}
+		return persisted.get(key);
+	}
+
+	private static synchronized void persist(String key, CachedOptions cached) {
+		getPersisted(key);
+		persisted.put(key, cached);
+		try (Writer writer = Files.newBufferedWriter(getCacheFile().toPath(), StandardCharsets.UTF_8)) {
+			GSON.toJson(persisted, CACHE_TYPE, writer);
+		} catch (IOException e) {
+			CorrosionPlugin.logError(e);
+		}
+	}
+}
@@ -12,63 +12,79 @@
  *******************************************************************************/
 package org.eclipse.corrosion.cargo.core;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import org.eclipse.corrosion.CorrosionPlugin;
 import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+import org.eclipse.corrosion.process.ProcessResult;
+import org.eclipse.corrosion.process.ProcessRunner;
 import org.eclipse.jface.preference.IPreferenceStore;
 
 public class CargoTools {
+	private static final long HELP_TIMEOUT_SECONDS = 30;
+	private static final Pattern BLANK_LINE_PATTERN = Pattern.compile("\\s*"); //$NON-NLS-1$
 
 	private CargoTools() {
 		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
 	}
 
+	/**
+	 * @param subCommand
+	 *            the cargo sub-command, such as <code>run</code>
+	 * @return the options of the sub-command, read from the
+	 *         {@link CargoOptionsCache} when available
+	 */
 	public static List<CLIOption> getOptions(String subCommand) {
-		String[] command = new String[] { getCargoCommand(), subCommand, "--help" }; //$NON-NLS-1$
+		return CargoOptionsCache.getOptions(subCommand);
+	}
+
+	static List<CLIOption> readOptions(String cargo, String subCommand) {
+		List<String> lines;
 		try {
-			Process process = Runtime.getRuntime().exec(command);
-			try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-				String line = in.readLine();
-				while (line != null) {
-					if ("options:".equalsIgnoreCase(line)) { //$NON-NLS-1$
-						break;
-					}
-					line = in.readLine();
-				}
-				if (line == null) {
-					return Collections.emptyList();
-				}
-				List<CLIOption> options = new ArrayList<>();
-				List<String> currentOptionLines = new ArrayList<>();
-				while (line != null) {
-					if (line.matches("\\s*")) { //$NON-NLS-1$
-						break;
-					} else if (line.matches("\\s*-+.*")) { //$NON-NLS-1$
-						if (!currentOptionLines.isEmpty()) {
-							options.add(new CLIOption(currentOptionLines));
-							currentOptionLines.clear();
-						}
-						currentOptionLines.add(line);
-					} else if (!currentOptionLines.isEmpty()) {
-						currentOptionLines.add(line);
-					}
-					line = in.readLine();
-				}
+			ProcessResult result = new ProcessRunner(cargo, subCommand, "--help") //$NON-NLS-1$
+					.timeout(HELP_TIMEOUT_SECONDS, TimeUnit.SECONDS).run(null);
+			if (!result.isSuccessful()) {
+				return Collections.emptyList();
+			}
+			lines = result.getOutputLines();
+		} catch (IOException e) {
+			return Collections.emptyList();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Collections.emptyList();
+		}
+		int index = 0;
+		while (index < lines.size() && !"options:".equalsIgnoreCase(lines.get(index))) { //$NON-NLS-1$
+			index++;
+		}
+		if (index == lines.size()) {
+			return Collections.emptyList();
+		}
+		List<CLIOption> options = new ArrayList<>();
+		List<String> currentOptionLines = new ArrayList<>();
+		for (; index < lines.size(); index++) {
+			String line = lines.get(index);
+			if (BLANK_LINE_PATTERN.matcher(line).matches()) {
+				break;
+			} else if (CLIOption.OPTION_LINE_PATTERN.matcher(line).matches()) {
 				if (!currentOptionLines.isEmpty()) {
 					options.add(new CLIOption(currentOptionLines));
 					currentOptionLines.clear();
 				}
-				return options;
+				currentOptionLines.add(line);
+			} else if (!currentOptionLines.isEmpty()) {
+				currentOptionLines.add(line);
 			}
-		} catch (IOException e) {
-			return Collections.emptyList();
 		}
+		if (!currentOptionLines.isEmpty()) {
+			options.add(new CLIOption(currentOptionLines));
+		}
+		return options;
 	}
 
 	public static String getCargoCommand() {
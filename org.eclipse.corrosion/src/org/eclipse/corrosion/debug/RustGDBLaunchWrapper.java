@@ -12,18 +12,15 @@
  *******************************************************************************/
 package org.eclipse.corrosion.debug;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.Arrays;
 
 import org.eclipse.cdt.dsf.gdb.launching.GdbLaunch;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
-import org.eclipse.core.runtime.Platform;
 import org.eclipse.corrosion.CorrosionPlugin;
 import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+import org.eclipse.corrosion.ToolLocator;
 import org.eclipse.debug.core.ILaunch;
 
 public class RustGDBLaunchWrapper extends GdbLaunch {
@@ -62,20 +59,7 @@ public class RustGDBLaunchWrapper extends GdbLaunch {
 	}
 
 	private String getGDBLocation() {
-		String[] command = new String[] { "/bin/bash", "-c", "which gdb" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-		if (Platform.getOS().equals(Platform.OS_WIN32)) {
-			command = new String[] { "cmd", "/c", "where gdb" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-		}
-		try {
-			Process process = Runtime.getRuntime().exec(command);
-			try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-				IPath location = Path.fromOSString(in.readLine());
-				String parentDirectory = location.toFile().getParent();
-				return parentDirectory != null ? parentDirectory : ""; //$NON-NLS-1$
-			}
-		} catch (IOException e) {
-			return ""; //$NON-NLS-1$
-		}
+		return ToolLocator.locateDirectory(ToolLocator.GDB);
 	}
 
 }
@@ -0,0 +1,126 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Splits a stream of bytes using the JSON-RPC base protocol framing, a
+ * <code>Content-Length</code> header followed by the message content, into
+ * message contents. Malformed headers are skipped.
+ */
+public class JsonRpcFrameDecoder {
+	private static final String CONTENT_LENGTH_HEADER = "content-length:"; //$NON-NLS-1$
+	private static final int HEADER_END = ('\r' << 24) | ('\n' << 16) | ('\r' << 8) | '\n';
+
+	/**
+	 * Receives the content of each message as it is decoded, chunk by chunk
+	 */
+	public interface ContentHandler {
+		void messageStarted(int length);
+
+		void contentDecoded(byte[] bytes, int offset, int length);
+
+		void messageEnded();
+	}
+
+	private final ContentHandler contentHandler;
+	private final ByteArrayOutputStream header = new ByteArrayOutputStream();
+	private int contentLength = -1;
+	private int contentRead;
+	private int lastHeaderBytes;
+
+	/**
+	 * @param messageConsumer
+	 *            called with the content of each complete message
+	 */
+	public JsonRpcFrameDecoder(Consumer<byte[]> messageConsumer) {
+		this(new ContentHandler() {
+			private byte[] content;
+			private int copied;
+
+			@Override
+			public void messageStarted(int length) {
+				content = new byte[length];
+				copied = 0;
+			}
+
+			@Override
+			public void contentDecoded(byte[] bytes, int offset, int length) {
+				System.arraycopy(bytes, offset, content, copied, length);
+				copied += length;
+			}
+
+			@Override
+			public void messageEnded() {
+				byte[] message = content;
+				content = null;
+				messageConsumer.accept(message);
+			}
+		});
+	}
+
+	/**
+	 * @param contentHandler
+	 *            receives the content of the messages without it being
+	 *            buffered
+	 */
+	public JsonRpcFrameDecoder(ContentHandler contentHandler) {
+		this.contentHandler = contentHandler;
+	}
+
+	public void decode(byte[] bytes, int offset, int length) {
+		int index = offset;
+		int end = offset + length;
+		while (index < end) {
+			if (contentLength < 0) {
+				byte b = bytes[index++];
+				header.write(b);
+				lastHeaderBytes = (lastHeaderBytes << 8) | (b & 0xFF);
+				if (lastHeaderBytes == HEADER_END) {
+					startContent();
+				}
+			} else {
+				int count = Math.min(end - index, contentLength - contentRead);
+				contentHandler.contentDecoded(bytes, index, count);
+				contentRead += count;
+				index += count;
+				if (contentRead == contentLength) {
+					contentLength = -1;
+					contentHandler.messageEnded();
+				}
+			}
+		}
+	}
+
+	private void startContent() {
+		String headers = new String(header.toByteArray(), StandardCharsets.US_ASCII);
+		header.reset();
+		lastHeaderBytes = 0;
+		for (String line : headers.split("\r\n")) { //$NON-NLS-1$
+			if (line.toLowerCase(Locale.ROOT).startsWith(CONTENT_LENGTH_HEADER)) {
+				try {
+					int length = Integer.parseInt(line.substring(CONTENT_LENGTH_HEADER.length()).trim());
+					if (length > 0) {
+						contentLength = length;
+						contentRead = 0;
+						contentHandler.messageStarted(length);
+					}
+				} catch (NumberFormatException e) {
+					// Skip the malformed message
+				}
+				return;
+			}
+		}
+	}
+}
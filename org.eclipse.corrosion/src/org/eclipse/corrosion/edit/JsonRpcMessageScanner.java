@@ -0,0 +1,226 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds the <code>id</code>, <code>method</code> and <code>error</code> members
+ * of JSON-RPC messages as their content is decoded, without buffering it. The
+ * scan of a message stops at its <code>params</code> or <code>result</code>
+ * member once the members identifying it are known: LSP4J and the Rust
+ * language servers write them first, so the large documents sent in the
+ * parameters are not read.
+ */
+class JsonRpcMessageScanner implements JsonRpcFrameDecoder.ContentHandler {
+	private static final String ID = "id"; //$NON-NLS-1$
+	private static final String METHOD = "method"; //$NON-NLS-1$
+	private static final String ERROR = "error"; //$NON-NLS-1$
+	private static final String PARAMS = "params"; //$NON-NLS-1$
+	private static final String RESULT = "result"; //$NON-NLS-1$
+	private static final int MAX_TOKEN_LENGTH = 256;
+
+	/**
+	 * Called with the members found in each message
+	 */
+	@FunctionalInterface
+	interface MessageHandler {
+		/**
+		 * @param id
+		 *            the request id, <code>null</code> for a notification
+		 * @param method
+		 *            the method, <code>null</code> for a response
+		 * @param error
+		 *            whether the message is an error response
+		 * @param length
+		 *            the length of the message content in bytes
+		 */
+		void messageScanned(String id, String method, boolean error, int length);
+	}
+
+	private final MessageHandler messageHandler;
+	private final ByteArrayOutputStream token = new ByteArrayOutputStream();
+	private int length;
+	private boolean done;
+	private boolean malformed;
+	private int depth;
+	private boolean inString;
+	private boolean escaped;
+	private boolean inScalar;
+	private boolean expectingKey;
+	private boolean capturing;
+	private String key;
+	private String id;
+	private String method;
+	private boolean error;
+
+	JsonRpcMessageScanner(MessageHandler messageHandler) {
+		this.messageHandler = messageHandler;
+	}
+
+	@Override
+	public void messageStarted(int messageLength) {
+		length = messageLength;
+		done = false;
+		malformed = false;
+		depth = 0;
+		inString = false;
+		escaped = false;
+		inScalar = false;
+		expectingKey = false;
+		capturing = false;
+		key = null;
+		id = null;
+		method = null;
+		error = false;
+	}
+
+	@Override
+	public void contentDecoded(byte[] bytes, int offset, int count) {
+		for (int i = offset; i < offset + count && !done; i++) {
+			scan(bytes[i]);
+		}
+	}
+
+	@Override
+	public void messageEnded() {
+		if (!malformed) {
+			messageHandler.messageScanned(id, method, error, length);
+		}
+	}
+
+	private void scan(byte b) {
+		if (inString) {
+			scanString(b);
+			return;
+		}
+		if (inScalar) {
+			if (b != ',' && b != '}' && !isWhitespace(b)) {
+				capture(b);
+				return;
+			}
+			inScalar = false;
+			tokenEnded(false);
+		}
+		switch (b) {
+		case '"':
+			inString = true;
+			startToken(depth == 1 && (expectingKey || isCaptured(key)));
+			break;
+		case '{':
+		case '[':
+			if (depth == 0 && b == '[') {
+				stop(true);
+				break;
+			}
+			depth++;
+			expectingKey = depth == 1;
+			break;
+		case '}':
+		case ']':
+			depth--;
+			if (depth == 0) {
+				stop(false);
+			}
+			break;
+		case ':':
+			if (depth == 1) {
+				expectingKey = false;
+			}
+			break;
+		case ',':
+			if (depth == 1) {
+				expectingKey = true;
+			}
+			break;
+		default:
+			if (isWhitespace(b)) {
+				break;
+			}
+			if (depth == 0) {
+				stop(true);
+			} else if (depth == 1) {
+				inScalar = true;
+				startToken(isCaptured(key));
+				capture(b);
+			}
+		}
+	}
+
+	/**
+	 * The escaped characters are kept as is, the members looked for have no
+	 * escape sequences but quotes
+	 */
+	private void scanString(byte b) {
+		if (escaped) {
+			escaped = false;
+			capture(b);
+		} else if (b == '\\') {
+			escaped = true;
+		} else if (b == '"') {
+			inString = false;
+			if (depth == 1) {
+				tokenEnded(true);
+			}
+		} else {
+			capture(b);
+		}
+	}
+
+	private static boolean isCaptured(String member) {
+		return ID.equals(member) || METHOD.equals(member);
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+	}
+
+	private void startToken(boolean capture) {
+		capturing = capture;
+		token.reset();
+	}
+
+	private void capture(byte b) {
+		if (!capturing) {
+			return;
+		}
+		if (token.size() < MAX_TOKEN_LENGTH) {
+			token.write(b);
+		} else {
+			capturing = false;
+			token.reset();
+		}
+	}
+
+	private void tokenEnded(boolean quoted) {
+		String value = capturing ? new String(token.toByteArray(), StandardCharsets.UTF_8) : null;
+		capturing = false;
+		if (expectingKey) {
+			key = value;
+			if (ERROR.equals(key)) {
+				error = true;
+			}
+			// the members after these hold the parameters or the result
+			if ((PARAMS.equals(key) && method != null) || ((RESULT.equals(key) || ERROR.equals(key)) && id != null)) {
+				stop(false);
+			}
+		} else if (ID.equals(key)) {
+			id = quoted || !"null".equals(value) ? value : null; //$NON-NLS-1$
+		} else if (METHOD.equals(key)) {
+			method = value;
+		}
+	}
+
+	private void stop(boolean isMalformed) {
+		done = true;
+		malformed = isMalformed;
+	}
+}
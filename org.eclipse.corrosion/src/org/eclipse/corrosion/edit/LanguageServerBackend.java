@@ -0,0 +1,67 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.lsp4j.Location;
+import org.eclipse.lsp4j.TextDocumentPositionParams;
+import org.eclipse.lsp4j.services.LanguageServer;
+
+/**
+ * A Rust language server implementation that can be started by
+ * {@link RLSStreamConnectionProvider}. The backend used is selected in the
+ * Language Server preferences.
+ *
+ * @see LanguageServerBackends
+ */
+public interface LanguageServerBackend {
+
+	/**
+	 * @return the identifier stored in the preferences
+	 */
+	String getId();
+
+	/**
+	 * @return the name shown to the user
+	 */
+	String getLabel();
+
+	/**
+	 * @return the command starting the server, or an empty list if the server
+	 *         is not installed or configured
+	 */
+	List<String> getCommand();
+
+	/**
+	 * @return the variables to add to the environment of the server
+	 */
+	Map<String, String> getEnvironment();
+
+	/**
+	 * @param rootUri
+	 *            the root of the project the server is started for, may be
+	 *            <code>null</code>
+	 * @return the <code>initializationOptions</code> of the
+	 *         <code>initialize</code> request, may be <code>null</code>
+	 */
+	Object getInitializationOptions(URI rootUri);
+
+	/**
+	 * Finds the implementations of the trait or type at the given position,
+	 * using the request supported by this backend. Cancelling the returned
+	 * future cancels the request.
+	 */
+	CompletableFuture<List<? extends Location>> implementations(LanguageServer languageServer,
+			TextDocumentPositionParams position);
+}
@@ -0,0 +1,59 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+
+/**
+ * The Rust language server backends known to Corrosion
+ */
+public class LanguageServerBackends {
+	public static final LanguageServerBackend RLS = new RLSBackend();
+	public static final LanguageServerBackend RUST_ANALYZER = new RustAnalyzerBackend();
+
+	private static final List<LanguageServerBackend> BACKENDS = Collections
+			.unmodifiableList(Arrays.asList(RLS, RUST_ANALYZER));
+
+	private LanguageServerBackends() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	public static List<LanguageServerBackend> getAll() {
+		return BACKENDS;
+	}
+
+	/**
+	 * @param id
+	 *            the backend identifier
+	 * @return the backend with the given identifier, or the RLS backend if
+	 *         unknown
+	 */
+	public static LanguageServerBackend find(String id) {
+		for (LanguageServerBackend backend : BACKENDS) {
+			if (backend.getId().equals(id)) {
+				return backend;
+			}
+		}
+		return RLS;
+	}
+
+	/**
+	 * @return the backend selected in the preferences of the workspace
+	 */
+	public static LanguageServerBackend getActive() {
+		return find(CorrosionPlugin.getDefault().getPreferenceStore()
+				.getString(CorrosionPreferenceInitializer.LANGUAGE_SERVER_BACKEND_PREFERENCE));
+	}
+}
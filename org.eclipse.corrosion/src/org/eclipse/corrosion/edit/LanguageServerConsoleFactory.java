@@ -0,0 +1,57 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.IOException;
+
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.ui.console.ConsolePlugin;
+import org.eclipse.ui.console.IConsole;
+import org.eclipse.ui.console.IConsoleFactory;
+import org.eclipse.ui.console.IConsoleManager;
+import org.eclipse.ui.console.MessageConsole;
+import org.eclipse.ui.console.MessageConsoleStream;
+
+/**
+ * Opens a console showing the most recent output of the language servers, as
+ * kept by {@link LanguageServerLog}. The console is a snapshot taken when it is
+ * opened, so the servers never wait on the console.
+ */
+public class LanguageServerConsoleFactory implements IConsoleFactory {
+	private static final String CONSOLE_TYPE = "org.eclipse.corrosion.languageServerConsole"; //$NON-NLS-1$
+
+	@Override
+	public void openConsole() {
+		IConsoleManager manager = ConsolePlugin.getDefault().getConsoleManager();
+		for (IConsole console : manager.getConsoles()) {
+			if (CONSOLE_TYPE.equals(console.getType())) {
+				manager.removeConsoles(new IConsole[] { console });
+			}
+		}
+		MessageConsole console = new MessageConsole(Messages.LanguageServerConsoleFactory_name, CONSOLE_TYPE, null,
+				true);
+		LanguageServerLog log = LanguageServerLog.getInstance();
+		try (MessageConsoleStream stream = console.newMessageStream()) {
+			if (log.getDroppedLines() > 0) {
+				stream.println(NLS.bind(Messages.LanguageServerConsoleFactory_droppedLines, log.getDroppedLines(),
+						log.getLogDirectory()));
+			}
+			for (String line : log.getTail()) {
+				stream.println(line);
+			}
+		} catch (IOException e) {
+			CorrosionPlugin.logError(e);
+		}
+		manager.addConsoles(new IConsole[] { console });
+		manager.showConsoleView(console);
+	}
+}
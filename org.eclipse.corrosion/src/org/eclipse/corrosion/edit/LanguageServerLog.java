@@ -0,0 +1,146 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.process.BoundedLineBuffer;
+
+/**
+ * Continuously reads the standard error of the language servers, so that the
+ * servers never block on a full pipe. The most recent lines are kept in memory
+ * for {@link LanguageServerConsoleFactory} and all of them are written to
+ * rolling log files in the state location of the plug-in.
+ */
+public class LanguageServerLog {
+	private static final int TAIL_LINES = 2000;
+	private static final long MAX_FILE_BYTES = 1024 * 1024;
+	private static final int MAX_FILES = 3;
+	private static final String LOG_DIRECTORY = "logs"; //$NON-NLS-1$
+	private static final String LOG_FILE_PREFIX = "language-server"; //$NON-NLS-1$
+	private static final String LOG_FILE_EXTENSION = ".log"; //$NON-NLS-1$
+
+	private static final LanguageServerLog INSTANCE = new LanguageServerLog();
+
+	private final BoundedLineBuffer tail = new BoundedLineBuffer(TAIL_LINES);
+	private Writer writer;
+	private long fileBytes;
+	private boolean fileLoggingFailed;
+
+	private LanguageServerLog() {
+	}
+
+	public static LanguageServerLog getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Starts reading the given error stream of a language server until it is
+	 * closed
+	 *
+	 * @return the thread reading the stream
+	 */
+	public Thread drain(InputStream errorStream) {
+		Thread thread = new Thread(() -> {
+			write("--- " + new Date() + " ---", true); //$NON-NLS-1$ //$NON-NLS-2$
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(errorStream, StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					tail.add(line);
+					write(line, !reader.ready());
+				}
+			} catch (IOException e) {
+				// the server exited
+			}
+		}, "Corrosion language server stderr drain"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	/**
+	 * @return the most recent lines written by the language servers, oldest
+	 *         first
+	 */
+	public List<String> getTail() {
+		return tail.getLines();
+	}
+
+	/**
+	 * @return the number of lines which are only available in the log files
+	 */
+	public long getDroppedLines() {
+		return tail.getDroppedLines();
+	}
+
+	public File getLogDirectory() {
+		return CorrosionPlugin.getDefault().getStateLocation().append(LOG_DIRECTORY).toFile();
+	}
+
+	private synchronized void write(String line, boolean flush) {
+		if (fileLoggingFailed) {
+			return;
+		}
+		try {
+			if (writer == null || fileBytes > MAX_FILE_BYTES) {
+				rollFiles();
+			}
+			writer.write(line);
+			writer.write(System.lineSeparator());
+			fileBytes += line.length() + System.lineSeparator().length();
+			if (flush) {
+				writer.flush();
+			}
+		} catch (IOException e) {
+			fileLoggingFailed = true;
+			CorrosionPlugin.logError(e);
+		}
+	}
+
+	private void rollFiles() throws IOException {
+		File directory = getLogDirectory();
+		if (writer != null) {
+			writer.close();
+			writer = null;
+			for (int i = MAX_FILES - 1; i > 0; i--) {
+				File source = getLogFile(directory, i - 1);
+				if (source.exists()) {
+					Files.move(source.toPath(), getLogFile(directory, i).toPath(),
+							StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+		}
+		Files.createDirectories(directory.toPath());
+		File current = getLogFile(directory, 0);
+		fileBytes = current.length();
+		writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(current.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8));
+	}
+
+	private static File getLogFile(File directory, int index) {
+		String suffix = index == 0 ? "" : "." + index; //$NON-NLS-1$ //$NON-NLS-2$
+		return new File(directory, LOG_FILE_PREFIX + suffix + LOG_FILE_EXTENSION);
+	}
+}
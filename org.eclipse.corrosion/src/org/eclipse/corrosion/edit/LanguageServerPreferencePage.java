@@ -0,0 +1,241 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
+
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.preference.PreferencePage;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Group;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.IWorkbenchPreferencePage;
+
+public class LanguageServerPreferencePage extends PreferencePage implements IWorkbenchPreferencePage {
+	public static final String PAGE_ID = "org.eclipse.corrosion.languageServer"; //$NON-NLS-1$
+	private static final int MAX_MEMORY_LIMIT = 1024 * 1024;
+	private static final int MAX_WAIT_TO_BUILD = 60000;
+	private static final int MAX_JOBS = 256;
+
+	private IPreferenceStore store;
+
+	private Combo backendCombo;
+	private Text rustAnalyzerPathText;
+	private Button rustAnalyzerBrowseButton;
+	private Spinner memoryLimitSpinner;
+	private Text targetDirText;
+	private Button warmUpCheckbox;
+	private Group rlsBuildGroup;
+	private Spinner waitToBuildSpinner;
+	private Spinner jobsSpinner;
+	private Button buildOnSaveCheckbox;
+	private Button allTargetsCheckbox;
+	private Button cfgTestCheckbox;
+	private Button racerCompletionCheckbox;
+
+	@Override
+	public void init(IWorkbench workbench) {
+		store = doGetPreferenceStore();
+	}
+
+	@Override
+	protected IPreferenceStore doGetPreferenceStore() {
+		return CorrosionPlugin.getDefault().getPreferenceStore();
+	}
+
+	@Override
+	protected Control createContents(Composite parent) {
+		Composite container = new Composite(parent, SWT.NULL);
+		container.setLayout(new GridLayout(3, false));
+
+		Label backendLabel = new Label(container, SWT.NONE);
+		backendLabel.setText(Messages.LanguageServerPreferencePage_backend);
+		backendLabel.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false));
+		backendCombo = new Combo(container, SWT.DROP_DOWN | SWT.READ_ONLY);
+		for (LanguageServerBackend backend : LanguageServerBackends.getAll()) {
+			backendCombo.add(backend.getLabel());
+		}
+		backendCombo.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 2, 1));
+		backendCombo.addSelectionListener(widgetSelectedAdapter(e -> updateRustAnalyzerEnablement()));
+
+		Label rustAnalyzerPathLabel = new Label(container, SWT.NONE);
+		rustAnalyzerPathLabel.setText(Messages.LanguageServerPreferencePage_rustAnalyzerPath);
+		rustAnalyzerPathLabel.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 3, 1));
+		rustAnalyzerPathText = new Text(container, SWT.BORDER);
+		GridData textData = new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1);
+		textData.horizontalIndent = 25;
+		textData.widthHint = convertWidthInCharsToPixels(50);
+		rustAnalyzerPathText.setLayoutData(textData);
+		rustAnalyzerBrowseButton = new Button(container, SWT.NONE);
+		rustAnalyzerBrowseButton.setText(Messages.LanguageServerPreferencePage_browse);
+		rustAnalyzerBrowseButton.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false));
+		rustAnalyzerBrowseButton.addSelectionListener(widgetSelectedAdapter(e -> {
+			FileDialog dialog = new FileDialog(rustAnalyzerBrowseButton.getShell());
+			String path = dialog.open();
+			if (path != null) {
+				rustAnalyzerPathText.setText(path);
+			}
+		}));
+
+		Label memoryLimitLabel = new Label(container, SWT.NONE);
+		memoryLimitLabel.setText(Messages.LanguageServerPreferencePage_memoryLimit);
+		memoryLimitLabel.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false));
+		memoryLimitSpinner = new Spinner(container, SWT.BORDER);
+		memoryLimitSpinner.setValues(0, 0, MAX_MEMORY_LIMIT, 0, 256, 1024);
+		memoryLimitSpinner.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 2, 1));
+
+		Label targetDirLabel = new Label(container, SWT.NONE);
+		targetDirLabel.setText(Messages.LanguageServerPreferencePage_targetDir);
+		targetDirLabel.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 3, 1));
+		targetDirText = new Text(container, SWT.BORDER);
+		GridData targetDirData = new GridData(SWT.FILL, SWT.CENTER, true, false, 3, 1);
+		targetDirData.horizontalIndent = 25;
+		targetDirText.setLayoutData(targetDirData);
+
+		warmUpCheckbox = createCheckbox(container, Messages.LanguageServerPreferencePage_warmUp);
+		((GridData) warmUpCheckbox.getLayoutData()).horizontalSpan = 3;
+
+		createRLSBuildGroup(container);
+
+		selectBackend(store.getString(CorrosionPreferenceInitializer.LANGUAGE_SERVER_BACKEND_PREFERENCE));
+		rustAnalyzerPathText.setText(store.getString(CorrosionPreferenceInitializer.RUST_ANALYZER_PATH_PREFERENCE));
+		memoryLimitSpinner.setSelection(store.getInt(CorrosionPreferenceInitializer.LANGUAGE_SERVER_MEMORY_LIMIT_PREFERENCE));
+		targetDirText.setText(store.getString(CorrosionPreferenceInitializer.LANGUAGE_SERVER_TARGET_DIR_PREFERENCE));
+		warmUpCheckbox.setSelection(store.getBoolean(CorrosionPreferenceInitializer.LANGUAGE_SERVER_WARM_UP_PREFERENCE));
+		waitToBuildSpinner.setSelection(store.getInt(CorrosionPreferenceInitializer.RLS_WAIT_TO_BUILD_PREFERENCE));
+		jobsSpinner.setSelection(store.getInt(CorrosionPreferenceInitializer.RLS_JOBS_PREFERENCE));
+		buildOnSaveCheckbox.setSelection(store.getBoolean(CorrosionPreferenceInitializer.RLS_BUILD_ON_SAVE_PREFERENCE));
+		allTargetsCheckbox.setSelection(store.getBoolean(CorrosionPreferenceInitializer.RLS_ALL_TARGETS_PREFERENCE));
+		cfgTestCheckbox.setSelection(store.getBoolean(CorrosionPreferenceInitializer.RLS_CFG_TEST_PREFERENCE));
+		racerCompletionCheckbox.setSelection(store.getBoolean(CorrosionPreferenceInitializer.RLS_RACER_COMPLETION_PREFERENCE));
+		return container;
+	}
+
+	private void createRLSBuildGroup(Composite container) {
+		rlsBuildGroup = new Group(container, SWT.NONE);
+		rlsBuildGroup.setText(Messages.LanguageServerPreferencePage_rlsBuild);
+		rlsBuildGroup.setLayout(new GridLayout(2, false));
+		rlsBuildGroup.setLayoutData(new GridData(SWT.FILL, SWT.TOP, true, false, 3, 1));
+
+		Label waitToBuildLabel = new Label(rlsBuildGroup, SWT.NONE);
+		waitToBuildLabel.setText(Messages.LanguageServerPreferencePage_waitToBuild);
+		waitToBuildSpinner = new Spinner(rlsBuildGroup, SWT.BORDER);
+		waitToBuildSpinner.setValues(0, 0, MAX_WAIT_TO_BUILD, 0, 100, 1000);
+
+		Label jobsLabel = new Label(rlsBuildGroup, SWT.NONE);
+		jobsLabel.setText(Messages.LanguageServerPreferencePage_jobs);
+		jobsSpinner = new Spinner(rlsBuildGroup, SWT.BORDER);
+		jobsSpinner.setValues(0, 0, MAX_JOBS, 0, 1, 4);
+
+		buildOnSaveCheckbox = createCheckbox(rlsBuildGroup, Messages.LanguageServerPreferencePage_buildOnSave);
+		allTargetsCheckbox = createCheckbox(rlsBuildGroup, Messages.LanguageServerPreferencePage_allTargets);
+		cfgTestCheckbox = createCheckbox(rlsBuildGroup, Messages.LanguageServerPreferencePage_cfgTest);
+		racerCompletionCheckbox = createCheckbox(rlsBuildGroup, Messages.LanguageServerPreferencePage_racerCompletion);
+	}
+
+	private static Button createCheckbox(Composite parent, String text) {
+		Button checkbox = new Button(parent, SWT.CHECK);
+		checkbox.setText(text);
+		checkbox.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 2, 1));
+		return checkbox;
+	}
+
+	private void selectBackend(String id) {
+		backendCombo.select(LanguageServerBackends.getAll().indexOf(LanguageServerBackends.find(id)));
+		updateRustAnalyzerEnablement();
+	}
+
+	private LanguageServerBackend getSelectedBackend() {
+		return LanguageServerBackends.getAll().get(Math.max(0, backendCombo.getSelectionIndex()));
+	}
+
+	private void updateRustAnalyzerEnablement() {
+		boolean enabled = getSelectedBackend() == LanguageServerBackends.RUST_ANALYZER;
+		rustAnalyzerPathText.setEnabled(enabled);
+		rustAnalyzerBrowseButton.setEnabled(enabled);
+		if (rlsBuildGroup != null) {
+			for (Control child : rlsBuildGroup.getChildren()) {
+				child.setEnabled(!enabled);
+			}
+		}
+	}
+
+	@Override
+	protected void performDefaults() {
+		selectBackend(store.getDefaultString(CorrosionPreferenceInitializer.LANGUAGE_SERVER_BACKEND_PREFERENCE));
+		rustAnalyzerPathText.setText(store.getDefaultString(CorrosionPreferenceInitializer.RUST_ANALYZER_PATH_PREFERENCE));
+		memoryLimitSpinner.setSelection(store.getDefaultInt(CorrosionPreferenceInitializer.LANGUAGE_SERVER_MEMORY_LIMIT_PREFERENCE));
+		targetDirText.setText(store.getDefaultString(CorrosionPreferenceInitializer.LANGUAGE_SERVER_TARGET_DIR_PREFERENCE));
+		warmUpCheckbox.setSelection(store.getDefaultBoolean(CorrosionPreferenceInitializer.LANGUAGE_SERVER_WARM_UP_PREFERENCE));
+		waitToBuildSpinner.setSelection(store.getDefaultInt(CorrosionPreferenceInitializer.RLS_WAIT_TO_BUILD_PREFERENCE));
+		jobsSpinner.setSelection(store.getDefaultInt(CorrosionPreferenceInitializer.RLS_JOBS_PREFERENCE));
+		buildOnSaveCheckbox.setSelection(store.getDefaultBoolean(CorrosionPreferenceInitializer.RLS_BUILD_ON_SAVE_PREFERENCE));
+		allTargetsCheckbox.setSelection(store.getDefaultBoolean(CorrosionPreferenceInitializer.RLS_ALL_TARGETS_PREFERENCE));
+		cfgTestCheckbox.setSelection(store.getDefaultBoolean(CorrosionPreferenceInitializer.RLS_CFG_TEST_PREFERENCE));
+		racerCompletionCheckbox.setSelection(store.getDefaultBoolean(CorrosionPreferenceInitializer.RLS_RACER_COMPLETION_PREFERENCE));
+		super.performDefaults();
+	}
+
+	@Override
+	public boolean performOk() {
+		String backend = getSelectedBackend().getId();
+		String rustAnalyzerPath = rustAnalyzerPathText.getText();
+		String targetDir = targetDirText.getText().trim();
+		boolean restartRequired = !backend.equals(store.getString(CorrosionPreferenceInitializer.LANGUAGE_SERVER_BACKEND_PREFERENCE))
+				|| (backend.equals(RustAnalyzerBackend.ID) && !rustAnalyzerPath
+						.equals(store.getString(CorrosionPreferenceInitializer.RUST_ANALYZER_PATH_PREFERENCE)))
+				|| !targetDir.equals(store.getString(CorrosionPreferenceInitializer.LANGUAGE_SERVER_TARGET_DIR_PREFERENCE));
+		store.setValue(CorrosionPreferenceInitializer.LANGUAGE_SERVER_BACKEND_PREFERENCE, backend);
+		store.setValue(CorrosionPreferenceInitializer.RUST_ANALYZER_PATH_PREFERENCE, rustAnalyzerPath);
+		store.setValue(CorrosionPreferenceInitializer.LANGUAGE_SERVER_MEMORY_LIMIT_PREFERENCE, memoryLimitSpinner.getSelection());
+		store.setValue(CorrosionPreferenceInitializer.LANGUAGE_SERVER_TARGET_DIR_PREFERENCE, targetDir);
+		boolean warmUpEnabled = warmUpCheckbox.getSelection()
+				&& !store.getBoolean(CorrosionPreferenceInitializer.LANGUAGE_SERVER_WARM_UP_PREFERENCE);
+		store.setValue(CorrosionPreferenceInitializer.LANGUAGE_SERVER_WARM_UP_PREFERENCE, warmUpCheckbox.getSelection());
+		Map<String, Object> previousRLSSettings = RLSBackend.getSettings(null);
+		store.setValue(CorrosionPreferenceInitializer.RLS_WAIT_TO_BUILD_PREFERENCE, waitToBuildSpinner.getSelection());
+		store.setValue(CorrosionPreferenceInitializer.RLS_JOBS_PREFERENCE, jobsSpinner.getSelection());
+		store.setValue(CorrosionPreferenceInitializer.RLS_BUILD_ON_SAVE_PREFERENCE, buildOnSaveCheckbox.getSelection());
+		store.setValue(CorrosionPreferenceInitializer.RLS_ALL_TARGETS_PREFERENCE, allTargetsCheckbox.getSelection());
+		store.setValue(CorrosionPreferenceInitializer.RLS_CFG_TEST_PREFERENCE, cfgTestCheckbox.getSelection());
+		store.setValue(CorrosionPreferenceInitializer.RLS_RACER_COMPLETION_PREFERENCE, racerCompletionCheckbox.getSelection());
+		if (restartRequired) {
+			LanguageServerSupervisor.getInstance().restart();
+		} else if (backend.equals(RLSBackend.ID) && !previousRLSSettings.equals(RLSBackend.getSettings(null))) {
+			// the running servers take the new build settings into account without restart
+			LanguageServerRegistry.getInstance().updateConfiguration(RLSBackend::getSettings);
+		}
+		if (warmUpEnabled) {
+			for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+				if (project.isOpen()) {
+					LanguageServerWarmUp.warmUp(project);
+				}
+			}
+		}
+		return true;
+	}
+}
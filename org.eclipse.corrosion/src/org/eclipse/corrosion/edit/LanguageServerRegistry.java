@@ -0,0 +1,140 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.lsp4j.DidChangeConfigurationParams;
+import org.eclipse.lsp4j.services.LanguageServer;
+
+/**
+ * Keeps track of the running Rust language servers, through the connection
+ * provider and the client implementation which LSP4E creates for each server,
+ * and pushes configuration changes to all of them.
+ */
+public class LanguageServerRegistry {
+	private static final long CONFIGURATION_DELAY_MILLIS = 300;
+
+	private static final LanguageServerRegistry INSTANCE = new LanguageServerRegistry();
+
+	private final Map<RLSStreamConnectionProvider, RLSClientImplementation> clients = new LinkedHashMap<>();
+	// the started connections whose client is not created yet, oldest first
+	private final Deque<RLSStreamConnectionProvider> startedConnections = new ArrayDeque<>();
+	private final List<Function<URI, Map<String, ?>>> pendingSettings = new ArrayList<>();
+	private final Job configurationJob = new Job(Messages.LanguageServerRegistry_updatingConfiguration) {
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			sendPendingSettings();
+			return Status.OK_STATUS;
+		}
+	};
+
+	private LanguageServerRegistry() {
+		configurationJob.setSystem(true);
+	}
+
+	public static LanguageServerRegistry getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Records a connection whose client is about to be created: LSP4E creates
+	 * the client of a server after starting its connection provider, possibly
+	 * on another thread, so the clients are paired with the connections in the
+	 * order they were started
+	 */
+	void connectionStarted(RLSStreamConnectionProvider provider) {
+		synchronized (clients) {
+			startedConnections.addLast(provider);
+		}
+	}
+
+	void register(RLSClientImplementation client) {
+		synchronized (clients) {
+			RLSStreamConnectionProvider provider = startedConnections.pollFirst();
+			// a client created without a started connection has no server to configure
+			if (provider != null) {
+				clients.put(provider, client);
+			}
+		}
+	}
+
+	/**
+	 * Forgets the server of a stopped connection, including a connection whose
+	 * client was never created
+	 */
+	void connectionStopped(RLSStreamConnectionProvider provider) {
+		synchronized (clients) {
+			startedConnections.remove(provider);
+			clients.remove(provider);
+		}
+	}
+
+	/**
+	 * Sends the given settings to all the running language servers in a
+	 * <code>workspace/didChangeConfiguration</code> notification. Settings
+	 * updated in quick succession are merged into a single notification.
+	 */
+	public void updateConfiguration(Map<String, ?> settings) {
+		updateConfiguration(rootUri -> settings);
+	}
+
+	/**
+	 * Sends settings computed for the project root of each running language
+	 * server, which may be <code>null</code>, like
+	 * {@link #updateConfiguration(Map)}
+	 */
+	public void updateConfiguration(Function<URI, Map<String, ?>> settings) {
+		synchronized (pendingSettings) {
+			pendingSettings.add(settings);
+		}
+		configurationJob.cancel();
+		configurationJob.schedule(CONFIGURATION_DELAY_MILLIS);
+	}
+
+	private void sendPendingSettings() {
+		List<Function<URI, Map<String, ?>>> settingsProviders;
+		synchronized (pendingSettings) {
+			if (pendingSettings.isEmpty()) {
+				return;
+			}
+			settingsProviders = new ArrayList<>(pendingSettings);
+			pendingSettings.clear();
+		}
+		Map<RLSStreamConnectionProvider, RLSClientImplementation> connections;
+		synchronized (clients) {
+			connections = new LinkedHashMap<>(clients);
+		}
+		for (Map.Entry<RLSStreamConnectionProvider, RLSClientImplementation> connection : connections.entrySet()) {
+			LanguageServer server = connection.getValue().getServer();
+			if (server == null) {
+				continue;
+			}
+			Map<String, Object> settings = new HashMap<>();
+			for (Function<URI, Map<String, ?>> settingsProvider : settingsProviders) {
+				settings.putAll(settingsProvider.apply(connection.getKey().getRootUri()));
+			}
+			server.getWorkspaceService().didChangeConfiguration(new DidChangeConfigurationParams(settings));
+		}
+	}
+}
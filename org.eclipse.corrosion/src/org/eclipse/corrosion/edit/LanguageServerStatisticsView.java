@@ -0,0 +1,133 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.function.Function;
+
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.corrosion.edit.LanguageServerTrafficMeter.MethodStatistics;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ColumnLabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.TableViewerColumn;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.ui.part.ViewPart;
+
+/**
+ * Shows the statistics recorded by the {@link LanguageServerTrafficMeter} for
+ * the language servers of all the projects together, refreshed every few
+ * seconds
+ */
+public class LanguageServerStatisticsView extends ViewPart {
+	public static final String VIEW_ID = "org.eclipse.corrosion.languageServerStatistics"; //$NON-NLS-1$
+	private static final int REFRESH_INTERVAL_MILLIS = 2000;
+
+	private TableViewer viewer;
+	private final Runnable refresher = new Runnable() {
+		@Override
+		public void run() {
+			if (viewer != null && !viewer.getControl().isDisposed()) {
+				refresh();
+				viewer.getControl().getDisplay().timerExec(REFRESH_INTERVAL_MILLIS, this);
+			}
+		}
+	};
+
+	@Override
+	public void createPartControl(Composite parent) {
+		viewer = new TableViewer(parent, SWT.FULL_SELECTION | SWT.H_SCROLL | SWT.V_SCROLL);
+		viewer.getTable().setHeaderVisible(true);
+		viewer.getTable().setLinesVisible(true);
+		viewer.setContentProvider(ArrayContentProvider.getInstance());
+		createColumn(Messages.LanguageServerStatisticsView_method, 250, MethodStatistics::getMethod);
+		createColumn(Messages.LanguageServerStatisticsView_requests, 80, s -> Long.toString(s.getRequests()));
+		createColumn(Messages.LanguageServerStatisticsView_inFlight, 70, s -> Long.toString(s.getInFlight()));
+		createColumn(Messages.LanguageServerStatisticsView_errors, 60, s -> Long.toString(s.getErrors()));
+		createColumn(Messages.LanguageServerStatisticsView_averageLatency, 80,
+				s -> Long.toString(s.getAverageLatencyMillis()));
+		createColumn(Messages.LanguageServerStatisticsView_medianLatency, 80,
+				s -> Long.toString(s.getMedianLatencyMillis()));
+		createColumn(Messages.LanguageServerStatisticsView_p95Latency, 80,
+				s -> Long.toString(s.getP95LatencyMillis()));
+		createColumn(Messages.LanguageServerStatisticsView_maxLatency, 80,
+				s -> Long.toString(s.getMaxLatencyMillis()));
+		createColumn(Messages.LanguageServerStatisticsView_notifications, 90,
+				s -> Long.toString(s.getNotifications()));
+		createColumn(Messages.LanguageServerStatisticsView_notificationRate, 90,
+				s -> String.format("%.2f", s.getNotificationsPerSecond())); //$NON-NLS-1$
+		createColumn(Messages.LanguageServerStatisticsView_bytesSent, 90, s -> Long.toString(s.getBytesSent()));
+		createColumn(Messages.LanguageServerStatisticsView_bytesReceived, 90,
+				s -> Long.toString(s.getBytesReceived()));
+
+		IToolBarManager toolBar = getViewSite().getActionBars().getToolBarManager();
+		toolBar.add(new Action(Messages.LanguageServerStatisticsView_reset) {
+			@Override
+			public void run() {
+				LanguageServerTrafficMeter.getInstance().reset();
+				refresh();
+			}
+		});
+		toolBar.add(new Action(Messages.LanguageServerStatisticsView_export) {
+			@Override
+			public void run() {
+				exportJson();
+			}
+		});
+		refresher.run();
+	}
+
+	private void createColumn(String title, int width, Function<MethodStatistics, String> text) {
+		TableViewerColumn column = new TableViewerColumn(viewer, SWT.NONE);
+		column.getColumn().setText(title);
+		column.getColumn().setWidth(width);
+		column.setLabelProvider(new ColumnLabelProvider() {
+			@Override
+			public String getText(Object element) {
+				return text.apply((MethodStatistics) element);
+			}
+		});
+	}
+
+	private void refresh() {
+		viewer.setInput(LanguageServerTrafficMeter.getInstance().getStatistics());
+	}
+
+	private void exportJson() {
+		FileDialog dialog = new FileDialog(viewer.getControl().getShell(), SWT.SAVE);
+		dialog.setFilterExtensions(new String[] { "*.json" }); //$NON-NLS-1$
+		dialog.setFileName("rust-language-server-statistics.json"); //$NON-NLS-1$
+		dialog.setOverwrite(true);
+		String path = dialog.open();
+		if (path == null) {
+			return;
+		}
+		try (Writer writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+			LanguageServerTrafficMeter.getInstance().exportJson(writer);
+		} catch (IOException e) {
+			CorrosionPlugin.showError(Messages.LanguageServerStatisticsView_exportFailed,
+					Messages.LanguageServerStatisticsView_exportFailed, e);
+		}
+	}
+
+	@Override
+	public void setFocus() {
+		viewer.getControl().setFocus();
+	}
+}
@@ -0,0 +1,95 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import org.eclipse.corrosion.Messages;
+import org.eclipse.corrosion.edit.LanguageServerSupervisor.Health;
+import org.eclipse.corrosion.edit.LanguageServerSupervisor.HealthListener;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.MouseAdapter;
+import org.eclipse.swt.events.MouseEvent;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.ui.menus.WorkbenchWindowControlContribution;
+
+/**
+ * Shows the state and memory usage of the Rust language servers, all projects
+ * together, in the status line. Double-clicking it restarts the servers.
+ */
+public class LanguageServerStatusContribution extends WorkbenchWindowControlContribution {
+	private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+	private Label label;
+	private final HealthListener listener = health -> {
+		if (label != null && !label.isDisposed()) {
+			label.getDisplay().asyncExec(() -> update(health));
+		}
+	};
+
+	@Override
+	protected Control createControl(Composite parent) {
+		Composite container = new Composite(parent, SWT.NONE);
+		GridLayout layout = new GridLayout(1, false);
+		layout.marginHeight = 0;
+		container.setLayout(layout);
+		label = new Label(container, SWT.NONE);
+		label.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, true));
+		label.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseDoubleClick(MouseEvent e) {
+				LanguageServerSupervisor.getInstance().restart();
+			}
+		});
+		LanguageServerSupervisor.getInstance().addHealthListener(listener);
+		update(LanguageServerSupervisor.getInstance().getHealth());
+		return container;
+	}
+
+	private void update(Health health) {
+		if (label == null || label.isDisposed()) {
+			return;
+		}
+		String state = getStateLabel(health);
+		String memory = health.getResidentBytes() < 0 ? Messages.LanguageServerStatusContribution_unknown
+				: Long.toString(health.getResidentBytes() / BYTES_PER_MEGABYTE);
+		String cpu = health.getCpuUsage() < 0 ? Messages.LanguageServerStatusContribution_unknown
+				: Long.toString(Math.round(health.getCpuUsage()));
+		String text = health.getResidentBytes() < 0 ? state
+				: NLS.bind(Messages.LanguageServerStatusContribution_memory, state, memory);
+		label.setText(NLS.bind(Messages.LanguageServerStatusContribution_label,
+				LanguageServerBackends.getActive().getLabel(), text));
+		label.setToolTipText(NLS.bind(Messages.LanguageServerStatusContribution_tooltip,
+				new Object[] { state, memory, cpu, health.getRestartCount(), health.getServerCount() }));
+		label.getParent().layout(true);
+	}
+
+	private static String getStateLabel(Health health) {
+		switch (health.getState()) {
+		case RUNNING:
+			return Messages.LanguageServerStatusContribution_running;
+		case RESTARTING:
+			return Messages.LanguageServerStatusContribution_restarting;
+		case FAILED:
+			return Messages.LanguageServerStatusContribution_failed;
+		default:
+			return Messages.LanguageServerStatusContribution_stopped;
+		}
+	}
+
+	@Override
+	public void dispose() {
+		LanguageServerSupervisor.getInstance().removeHealthListener(listener);
+		super.dispose();
+	}
+}
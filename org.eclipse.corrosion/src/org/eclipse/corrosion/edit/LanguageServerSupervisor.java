@@ -0,0 +1,502 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.corrosion.process.ProcessResourceSampler;
+import org.eclipse.corrosion.process.ProcessResourceSampler.ResourceSample;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.lsp4e.LanguageServerWrapper;
+import org.eclipse.lsp4e.LanguageServiceAccessor;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.IFileEditorInput;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.texteditor.ITextEditor;
+
+/**
+ * Watches the language server processes started by
+ * {@link RLSStreamConnectionProvider}, one per project: it samples their
+ * memory and CPU usage, restarts the server of a project with an exponential
+ * backoff when it crashes and gracefully restarts it when it exceeds the
+ * configured memory limit.
+ */
+@SuppressWarnings("restriction")
+public class LanguageServerSupervisor {
+	public static final String SERVER_ID = "org.eclipse.corrosion.rls"; //$NON-NLS-1$
+
+	private static final long SAMPLE_INTERVAL_SECONDS = 5;
+	private static final long INITIAL_BACKOFF_MILLIS = 1000;
+	private static final long MAX_BACKOFF_MILLIS = 60000;
+	private static final long STABLE_UPTIME_MILLIS = 120000;
+	private static final int MAX_CONSECUTIVE_CRASHES = 5;
+	private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+	private static final LanguageServerSupervisor INSTANCE = new LanguageServerSupervisor();
+
+	/**
+	 * The states of a server, from the least to the most severe
+	 */
+	public enum State {
+		STOPPED, RUNNING, RESTARTING, FAILED
+	}
+
+	/**
+	 * Immutable snapshot of the health of the language servers
+	 */
+	public static class Health {
+		private final State state;
+		private final long residentBytes;
+		private final double cpuUsage;
+		private final int restartCount;
+		private final int serverCount;
+
+		private Health(State state, long residentBytes, double cpuUsage, int restartCount, int serverCount) {
+			this.state = state;
+			this.residentBytes = residentBytes;
+			this.cpuUsage = cpuUsage;
+			this.restartCount = restartCount;
+			this.serverCount = serverCount;
+		}
+
+		/**
+		 * @return the most severe state of the servers
+		 */
+		public State getState() {
+			return state;
+		}
+
+		/**
+		 * @return the resident memory of the servers in bytes, or <code>-1</code>
+		 *         if unknown
+		 */
+		public long getResidentBytes() {
+			return residentBytes;
+		}
+
+		/**
+		 * @return the percentage of one CPU used by the servers since the previous
+		 *         sample, or <code>-1</code> if unknown
+		 */
+		public double getCpuUsage() {
+			return cpuUsage;
+		}
+
+		/**
+		 * @return the number of restarts done by the supervisor
+		 */
+		public int getRestartCount() {
+			return restartCount;
+		}
+
+		/**
+		 * @return the number of running servers
+		 */
+		public int getServerCount() {
+			return serverCount;
+		}
+	}
+
+	@FunctionalInterface
+	public interface HealthListener {
+		void healthChanged(Health health);
+	}
+
+	/**
+	 * A running server process
+	 */
+	private static class Server {
+		private final Process process;
+		private final long pid;
+		private final long startTimeMillis = System.currentTimeMillis();
+		private IProject project;
+		private boolean stopRequested;
+		private ResourceSample lastSample;
+		private ScheduledFuture<?> sampling;
+		private long residentBytes = -1;
+		private double cpuUsage = -1;
+		private boolean memoryLimitReported;
+
+		private Server(Process process) {
+			this.process = process;
+			this.pid = ProcessResourceSampler.getPid(process);
+		}
+	}
+
+	/**
+	 * The crashes of the successive servers of a project, dropped once its
+	 * server exits normally or is not restarted
+	 */
+	private static class ProjectState {
+		private int consecutiveCrashes;
+		private boolean restartScheduled;
+		private boolean failed;
+	}
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Corrosion language server supervisor"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final List<HealthListener> listeners = new CopyOnWriteArrayList<>();
+
+	private final Map<Process, Server> servers = new HashMap<>();
+	// the key is null for the servers started outside of any project
+	private final Map<IProject, ProjectState> projects = new HashMap<>();
+	private int restartCount;
+	private volatile Health health = new Health(State.STOPPED, -1, -1, 0, 0);
+
+	private LanguageServerSupervisor() {
+	}
+
+	public static LanguageServerSupervisor getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @return the health of all the servers together
+	 */
+	public Health getHealth() {
+		return health;
+	}
+
+	public void addHealthListener(HealthListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeHealthListener(HealthListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Starts watching a newly started language server process
+	 */
+	synchronized void serverStarted(Process process) {
+		Server server = new Server(process);
+		servers.put(process, server);
+		server.sampling = scheduler.scheduleWithFixedDelay(() -> sample(server), 0, SAMPLE_INTERVAL_SECONDS,
+				TimeUnit.SECONDS);
+		Thread exitWatcher = new Thread(() -> {
+			try {
+				process.waitFor();
+				processExited(server);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, "Corrosion language server exit watcher"); //$NON-NLS-1$
+		exitWatcher.setDaemon(true);
+		exitWatcher.start();
+		updateHealth();
+	}
+
+	/**
+	 * Associates a server process with the project it is initialized for, once
+	 * its root is known
+	 *
+	 * @param rootUri
+	 *            the root of the project, may be <code>null</code>
+	 */
+	synchronized void serverInitializing(Process process, URI rootUri) {
+		Server server = servers.get(process);
+		if (server == null) {
+			return;
+		}
+		server.project = findProject(rootUri);
+		ProjectState projectState = projects.get(server.project);
+		if (projectState != null) {
+			projectState.failed = false;
+		}
+		updateHealth();
+	}
+
+	/**
+	 * Marks the process as intentionally stopped, to be called before destroying
+	 * it
+	 */
+	synchronized void serverStopping(Process process) {
+		Server server = servers.get(process);
+		if (server != null) {
+			server.stopRequested = true;
+		}
+	}
+
+	private synchronized void processExited(Server server) {
+		if (servers.remove(server.process) == null) {
+			return;
+		}
+		server.sampling.cancel(false);
+		ProjectState projectState = getProjectState(server.project);
+		int exitCode = server.process.exitValue();
+		// the server exits with 0 after the shutdown requested by LSP4E
+		if (server.stopRequested || exitCode == 0) {
+			if (!projectState.restartScheduled) {
+				projects.remove(server.project);
+			}
+			updateHealth();
+			return;
+		}
+		if (System.currentTimeMillis() - server.startTimeMillis > STABLE_UPTIME_MILLIS) {
+			projectState.consecutiveCrashes = 0;
+		}
+		projectState.consecutiveCrashes++;
+		if (projectState.consecutiveCrashes > MAX_CONSECUTIVE_CRASHES) {
+			CorrosionPlugin.getDefault().getLog().log(new Status(IStatus.ERROR, CorrosionPlugin.PLUGIN_ID,
+					NLS.bind(Messages.LanguageServerSupervisor_gaveUp, getName(server.project),
+							MAX_CONSECUTIVE_CRASHES)));
+			projectState.failed = true;
+			projectState.restartScheduled = false;
+			updateHealth();
+			return;
+		}
+		long backoff = Math.min(INITIAL_BACKOFF_MILLIS << (projectState.consecutiveCrashes - 1), MAX_BACKOFF_MILLIS);
+		CorrosionPlugin.getDefault().getLog().log(new Status(IStatus.WARNING, CorrosionPlugin.PLUGIN_ID,
+				NLS.bind(Messages.LanguageServerSupervisor_crashed,
+						new Object[] { getName(server.project), exitCode, backoff })));
+		projectState.restartScheduled = true;
+		restartCount++;
+		updateHealth();
+		scheduleRestart(stoppedProject(server.project), backoff);
+	}
+
+	private void sample(Server server) {
+		if (!server.process.isAlive()) {
+			return;
+		}
+		// read outside of the lock, the other servers are not delayed
+		ResourceSample sample = ProcessResourceSampler.sample(server.pid);
+		if (sample == null) {
+			return;
+		}
+		synchronized (this) {
+			if (!servers.containsKey(server.process)) {
+				return;
+			}
+			server.cpuUsage = server.lastSample != null ? sample.getCpuUsageSince(server.lastSample) : -1;
+			server.residentBytes = sample.getResidentBytes();
+			server.lastSample = sample;
+			long memoryLimit = CorrosionPlugin.getDefault().getPreferenceStore()
+					.getInt(CorrosionPreferenceInitializer.LANGUAGE_SERVER_MEMORY_LIMIT_PREFERENCE) * BYTES_PER_MEGABYTE;
+			if (memoryLimit > 0 && sample.getResidentBytes() > memoryLimit) {
+				memoryLimitExceeded(server, sample.getResidentBytes(), memoryLimit);
+			}
+			updateHealth();
+		}
+	}
+
+	/**
+	 * Restarts the server of a known project, the server of an unknown project
+	 * cannot be selected: it keeps being sampled and the limit is only logged
+	 */
+	private void memoryLimitExceeded(Server server, long residentBytes, long memoryLimit) {
+		if (server.project == null) {
+			if (!server.memoryLimitReported) {
+				server.memoryLimitReported = true;
+				CorrosionPlugin.getDefault().getLog()
+						.log(new Status(IStatus.WARNING, CorrosionPlugin.PLUGIN_ID,
+								NLS.bind(Messages.LanguageServerSupervisor_memoryLimitExceededNoProject,
+										residentBytes / BYTES_PER_MEGABYTE, memoryLimit / BYTES_PER_MEGABYTE)));
+			}
+			return;
+		}
+		CorrosionPlugin.getDefault().getLog()
+				.log(new Status(IStatus.WARNING, CorrosionPlugin.PLUGIN_ID,
+						NLS.bind(Messages.LanguageServerSupervisor_memoryLimitExceeded,
+								new Object[] { getName(server.project), residentBytes / BYTES_PER_MEGABYTE,
+										memoryLimit / BYTES_PER_MEGABYTE })));
+		server.sampling.cancel(false);
+		getProjectState(server.project).restartScheduled = true;
+		restartCount++;
+		scheduleRestart(stoppedProject(server.project), 0);
+	}
+
+	/**
+	 * Stops the language servers of the open Rust editors and connects the
+	 * editors again, which starts new servers
+	 */
+	public void restart() {
+		synchronized (this) {
+			// the crashes are counted again from the manual restart
+			projects.values().removeIf(projectState -> !projectState.restartScheduled);
+			for (ProjectState projectState : projects.values()) {
+				projectState.consecutiveCrashes = 0;
+			}
+			updateHealth();
+		}
+		scheduleRestart(project -> true, 0);
+	}
+
+	/**
+	 * @return the predicate selecting the server of the given project, or no
+	 *         server when its project is unknown: connecting the editors again
+	 *         then only restarts the servers which are no longer running
+	 */
+	private static Predicate<IProject> stoppedProject(IProject project) {
+		return project != null ? project::equals : other -> false;
+	}
+
+	/**
+	 * Stops the servers of the selected projects and connects the open Rust
+	 * editors again
+	 */
+	private void scheduleRestart(Predicate<IProject> stoppedProjects, long delayMillis) {
+		Job job = new Job(Messages.LanguageServerSupervisor_restarting) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				List<IFileEditorInput> inputs = new ArrayList<>();
+				List<IDocument> documents = new ArrayList<>();
+				PlatformUI.getWorkbench().getDisplay().syncExec(() -> collectOpenRustEditors(inputs, documents));
+				Set<IProject> restartedProjects = new LinkedHashSet<>();
+				for (IFileEditorInput input : inputs) {
+					IProject project = input.getFile().getProject();
+					if (stoppedProjects.test(project)) {
+						restartedProjects.add(project);
+					}
+				}
+				for (IProject project : restartedProjects) {
+					for (LanguageServerWrapper wrapper : LanguageServiceAccessor.getLSWrappers(project, null)) {
+						if (SERVER_ID.equals(wrapper.serverDefinition.id)) {
+							wrapper.stop();
+						}
+					}
+				}
+				for (IDocument document : documents) {
+					LanguageServiceAccessor.getLanguageServers(document, null);
+				}
+				restartDone(stoppedProjects, restartedProjects);
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.schedule(delayMillis);
+	}
+
+	private static void collectOpenRustEditors(List<IFileEditorInput> inputs, List<IDocument> documents) {
+		for (IWorkbenchWindow window : PlatformUI.getWorkbench().getWorkbenchWindows()) {
+			for (IWorkbenchPage page : window.getPages()) {
+				for (IEditorReference editor : page.getEditorReferences()) {
+					IEditorInput input;
+					try {
+						input = editor.getEditorInput();
+					} catch (PartInitException e) {
+						continue;
+					}
+					if (input instanceof IFileEditorInput && input.getName().endsWith(".rs") //$NON-NLS-1$
+							&& editor.getEditor(false) instanceof ITextEditor) {
+						IDocument document = ((ITextEditor) editor.getEditor(false)).getDocumentProvider()
+								.getDocument(input);
+						if (document != null) {
+							inputs.add((IFileEditorInput) input);
+							documents.add(document);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Forgets the projects whose server was not restarted because none of their
+	 * files is open anymore
+	 */
+	private synchronized void restartDone(Predicate<IProject> stoppedProjects, Set<IProject> restartedProjects) {
+		projects.entrySet().removeIf(entry -> {
+			ProjectState projectState = entry.getValue();
+			// the servers of unknown projects are restarted by any reconnection of
+			// the editors
+			if (!projectState.restartScheduled
+					|| (entry.getKey() != null && !stoppedProjects.test(entry.getKey()))) {
+				return false;
+			}
+			projectState.restartScheduled = false;
+			return entry.getKey() != null && !restartedProjects.contains(entry.getKey());
+		});
+		updateHealth();
+	}
+
+	private ProjectState getProjectState(IProject project) {
+		return projects.computeIfAbsent(project, key -> new ProjectState());
+	}
+
+	private static IProject findProject(URI rootUri) {
+		if (rootUri == null) {
+			return null;
+		}
+		for (IContainer container : ResourcesPlugin.getWorkspace().getRoot().findContainersForLocationURI(rootUri)) {
+			if (container instanceof IProject) {
+				return (IProject) container;
+			}
+		}
+		return null;
+	}
+
+	private static String getName(IProject project) {
+		return project != null ? project.getName() : Messages.LanguageServerSupervisor_noProject;
+	}
+
+	/**
+	 * Aggregates the state of the running servers and of the scheduled restarts:
+	 * the most severe state, and the sums of the memory and CPU usages
+	 */
+	private void updateHealth() {
+		State state = servers.isEmpty() ? State.STOPPED : State.RUNNING;
+		for (ProjectState projectState : projects.values()) {
+			if (projectState.failed) {
+				state = State.FAILED;
+			} else if (projectState.restartScheduled && state != State.FAILED) {
+				state = State.RESTARTING;
+			}
+		}
+		long residentBytes = -1;
+		double cpuUsage = -1;
+		for (Server server : servers.values()) {
+			if (server.residentBytes >= 0) {
+				residentBytes = Math.max(residentBytes, 0) + server.residentBytes;
+			}
+			if (server.cpuUsage >= 0) {
+				cpuUsage = Math.max(cpuUsage, 0) + server.cpuUsage;
+			}
+		}
+		setHealth(new Health(state, residentBytes, cpuUsage, restartCount, servers.size()));
+	}
+
+	private void setHealth(Health newHealth) {
+		health = newHealth;
+		for (HealthListener listener : listeners) {
+			listener.healthChanged(newHealth);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+import org.eclipse.corrosion.Messages;
+
+/**
+ * The target directory of the language server builds, kept apart from the
+ * <code>target</code> directory of the Cargo builds so that each keeps its own
+ * build cache.
+ */
+public class LanguageServerTargetDirectory {
+	private LanguageServerTargetDirectory() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Resolves the configured directory, without creating it
+	 *
+	 * @param rootUri
+	 *            the root of the project the server is started for, may be
+	 *            <code>null</code>
+	 * @return the absolute path of the target directory of the language server,
+	 *         or <code>null</code> to use the default Cargo target directory
+	 */
+	public static String getPath(URI rootUri) {
+		Path path = resolve(rootUri);
+		return path == null ? null : path.toString();
+	}
+
+	private static Path resolve(URI rootUri) {
+		String preference = CorrosionPlugin.getDefault().getPreferenceStore()
+				.getString(CorrosionPreferenceInitializer.LANGUAGE_SERVER_TARGET_DIR_PREFERENCE).trim();
+		if (preference.isEmpty()) {
+			return null;
+		}
+		Path path = Paths.get(preference);
+		if (!path.isAbsolute()) {
+			if (rootUri == null || !"file".equals(rootUri.getScheme())) { //$NON-NLS-1$
+				return null;
+			}
+			path = Paths.get(rootUri).resolve(path);
+		}
+		return path;
+	}
+
+	/**
+	 * Creates the directory and, when it is in the workspace, marks it as
+	 * derived so that searches and builders skip the build artifacts. The
+	 * derived flag is kept in the workspace metadata, the project description
+	 * is left untouched. The directory is still refreshed with its project.
+	 * Called once when a server is initialized.
+	 *
+	 * @param rootUri
+	 *            the root of the project the server is started for, may be
+	 *            <code>null</code>
+	 */
+	public static void prepare(URI rootUri) {
+		Path path = resolve(rootUri);
+		if (path == null) {
+			return;
+		}
+		try {
+			Files.createDirectories(path);
+		} catch (IOException e) {
+			CorrosionPlugin.logError(e);
+			return;
+		}
+		IContainer[] containers = ResourcesPlugin.getWorkspace().getRoot()
+				.findContainersForLocationURI(path.toUri());
+		for (IContainer container : containers) {
+			if (container instanceof IFolder) {
+				new WorkspaceJob(Messages.LanguageServerTargetDirectory_markingDerived) {
+					@Override
+					public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
+						markDerived((IFolder) container, monitor);
+						return Status.OK_STATUS;
+					}
+				}.schedule();
+			}
+		}
+	}
+
+	private static void markDerived(IFolder folder, IProgressMonitor monitor) throws CoreException {
+		if (!folder.exists()) {
+			folder.create(IResource.FORCE | IResource.DERIVED, true, monitor);
+		} else if (!folder.isDerived()) {
+			folder.setDerived(true, monitor);
+		}
+	}
+}
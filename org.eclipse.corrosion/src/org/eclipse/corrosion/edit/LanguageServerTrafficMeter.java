@@ -0,0 +1,379 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.gson.GsonBuilder;
+
+/**
+ * Records the JSON-RPC traffic between the IDE and the Rust language server:
+ * request latencies, in-flight requests, payload sizes and notification rates,
+ * per method. The streams of each server are wrapped by a {@link Connection}
+ * returned by {@link #connect()}.
+ */
+public class LanguageServerTrafficMeter {
+	/**
+	 * Number of buckets of the latency histograms. Bucket <code>i</code> counts
+	 * the latencies below <code>2^i</code> milliseconds not counted by the
+	 * previous buckets, the last one counts all the longer ones.
+	 */
+	public static final int HISTOGRAM_BUCKETS = 18;
+
+	private static final LanguageServerTrafficMeter INSTANCE = new LanguageServerTrafficMeter();
+
+	private final Map<String, MethodCounters> counters = new ConcurrentHashMap<>();
+	private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+	private final List<MessageListener> listeners = new CopyOnWriteArrayList<>();
+	private volatile long startTimeMillis = System.currentTimeMillis();
+
+	private LanguageServerTrafficMeter() {
+	}
+
+	public static LanguageServerTrafficMeter getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Notified of each request and notification exchanged with the language
+	 * server, on the thread reading or writing the message
+	 */
+	@FunctionalInterface
+	public interface MessageListener {
+		void messageTransferred(String method, boolean fromServer);
+	}
+
+	private static class PendingRequest {
+		private final String method;
+		private final long startNanos;
+
+		private PendingRequest(String method, long startNanos) {
+			this.method = method;
+			this.startNanos = startNanos;
+		}
+	}
+
+	private static class MethodCounters {
+		private final AtomicLong requests = new AtomicLong();
+		private final AtomicLong responses = new AtomicLong();
+		private final AtomicLong errors = new AtomicLong();
+		private final AtomicLong inFlight = new AtomicLong();
+		private final AtomicLong notifications = new AtomicLong();
+		private final AtomicLong bytesSent = new AtomicLong();
+		private final AtomicLong bytesReceived = new AtomicLong();
+		private final AtomicLong totalLatencyMillis = new AtomicLong();
+		private final AtomicLong maxLatencyMillis = new AtomicLong();
+		private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+
+		private void addBytes(int size, boolean fromServer) {
+			(fromServer ? bytesReceived : bytesSent).addAndGet(size);
+		}
+
+		private void recordLatency(long latencyMillis) {
+			totalLatencyMillis.addAndGet(latencyMillis);
+			maxLatencyMillis.accumulateAndGet(latencyMillis, Math::max);
+			int bucket = latencyMillis <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(latencyMillis);
+			histogram.incrementAndGet(Math.min(bucket, HISTOGRAM_BUCKETS - 1));
+		}
+	}
+
+	/**
+	 * Immutable statistics of a JSON-RPC method
+	 */
+	public static class MethodStatistics {
+		private final String method;
+		private final long requests;
+		private final long responses;
+		private final long errors;
+		private final long inFlight;
+		private final long notifications;
+		private final double notificationsPerSecond;
+		private final long bytesSent;
+		private final long bytesReceived;
+		private final long averageLatencyMillis;
+		private final long medianLatencyMillis;
+		private final long p95LatencyMillis;
+		private final long maxLatencyMillis;
+		private final long[] latencyHistogram;
+
+		private MethodStatistics(String method, MethodCounters counters, long elapsedMillis) {
+			this.method = method;
+			this.requests = counters.requests.get();
+			this.responses = counters.responses.get();
+			this.errors = counters.errors.get();
+			this.inFlight = counters.inFlight.get();
+			this.notifications = counters.notifications.get();
+			this.notificationsPerSecond = elapsedMillis > 0 ? notifications * 1000.0 / elapsedMillis : 0;
+			this.bytesSent = counters.bytesSent.get();
+			this.bytesReceived = counters.bytesReceived.get();
+			this.averageLatencyMillis = responses > 0 ? counters.totalLatencyMillis.get() / responses : 0;
+			this.maxLatencyMillis = counters.maxLatencyMillis.get();
+			this.latencyHistogram = new long[HISTOGRAM_BUCKETS];
+			for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+				latencyHistogram[i] = counters.histogram.get(i);
+			}
+			this.medianLatencyMillis = percentile(0.5);
+			this.p95LatencyMillis = percentile(0.95);
+		}
+
+		/**
+		 * @return the upper bound of the histogram bucket containing the
+		 *         percentile, capped by the maximum latency
+		 */
+		private long percentile(double fraction) {
+			long total = 0;
+			for (long count : latencyHistogram) {
+				total += count;
+			}
+			if (total == 0) {
+				return 0;
+			}
+			long threshold = (long) Math.ceil(total * fraction);
+			long cumulated = 0;
+			for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+				cumulated += latencyHistogram[i];
+				if (cumulated >= threshold) {
+					return Math.min(1L << i, maxLatencyMillis);
+				}
+			}
+			return maxLatencyMillis;
+		}
+
+		public String getMethod() {
+			return method;
+		}
+
+		public long getRequests() {
+			return requests;
+		}
+
+		public long getResponses() {
+			return responses;
+		}
+
+		public long getErrors() {
+			return errors;
+		}
+
+		public long getInFlight() {
+			return inFlight;
+		}
+
+		public long getNotifications() {
+			return notifications;
+		}
+
+		public double getNotificationsPerSecond() {
+			return notificationsPerSecond;
+		}
+
+		public long getBytesSent() {
+			return bytesSent;
+		}
+
+		public long getBytesReceived() {
+			return bytesReceived;
+		}
+
+		public long getAverageLatencyMillis() {
+			return averageLatencyMillis;
+		}
+
+		public long getMedianLatencyMillis() {
+			return medianLatencyMillis;
+		}
+
+		public long getP95LatencyMillis() {
+			return p95LatencyMillis;
+		}
+
+		public long getMaxLatencyMillis() {
+			return maxLatencyMillis;
+		}
+
+		/**
+		 * @see LanguageServerTrafficMeter#HISTOGRAM_BUCKETS
+		 */
+		public long[] getLatencyHistogram() {
+			return latencyHistogram.clone();
+		}
+	}
+
+	/**
+	 * @return the statistics of each method seen since the last reset, sorted by
+	 *         method name
+	 */
+	public List<MethodStatistics> getStatistics() {
+		long elapsedMillis = System.currentTimeMillis() - startTimeMillis;
+		List<MethodStatistics> statistics = new ArrayList<>();
+		for (Map.Entry<String, MethodCounters> entry : counters.entrySet()) {
+			statistics.add(new MethodStatistics(entry.getKey(), entry.getValue(), elapsedMillis));
+		}
+		statistics.sort(Comparator.comparing(MethodStatistics::getMethod));
+		return statistics;
+	}
+
+	/**
+	 * @return a new connection, to meter the streams of a newly started server
+	 */
+	public Connection connect() {
+		Connection connection = new Connection();
+		connections.add(connection);
+		return connection;
+	}
+
+	public void addMessageListener(MessageListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeMessageListener(MessageListener listener) {
+		listeners.remove(listener);
+	}
+
+	public void reset() {
+		counters.clear();
+		for (Connection connection : connections) {
+			connection.pendingRequests.clear();
+		}
+		startTimeMillis = System.currentTimeMillis();
+	}
+
+	/**
+	 * Writes the current statistics as JSON, for comparison between sessions
+	 */
+	public void exportJson(Writer writer) {
+		Map<String, Object> export = new LinkedHashMap<>();
+		export.put("startTime", startTimeMillis); //$NON-NLS-1$
+		export.put("durationMillis", System.currentTimeMillis() - startTimeMillis); //$NON-NLS-1$
+		export.put("methods", getStatistics()); //$NON-NLS-1$
+		new GsonBuilder().setPrettyPrinting().create().toJson(export, writer);
+	}
+
+	/**
+	 * The streams of a server, whose JSON-RPC request ids are matched with the
+	 * responses independently of the other servers
+	 */
+	public class Connection {
+		private final Map<String, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+
+		private Connection() {
+		}
+
+		public InputStream meter(InputStream serverOutput) {
+			JsonRpcFrameDecoder decoder = new JsonRpcFrameDecoder(new JsonRpcMessageScanner(
+					(id, method, error, length) -> messageTransferred(id, method, error, length, true)));
+			return new FilterInputStream(serverOutput) {
+				@Override
+				public int read() throws IOException {
+					int b = super.read();
+					if (b != -1) {
+						decoder.decode(new byte[] { (byte) b }, 0, 1);
+					}
+					return b;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					int read = super.read(b, off, len);
+					if (read > 0) {
+						decoder.decode(b, off, read);
+					}
+					return read;
+				}
+			};
+		}
+
+		public OutputStream meter(OutputStream serverInput) {
+			JsonRpcFrameDecoder decoder = new JsonRpcFrameDecoder(new JsonRpcMessageScanner(
+					(id, method, error, length) -> messageTransferred(id, method, error, length, false)));
+			return new FilterOutputStream(serverInput) {
+				@Override
+				public void write(int b) throws IOException {
+					out.write(b);
+					decoder.decode(new byte[] { (byte) b }, 0, 1);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					out.write(b, off, len);
+					decoder.decode(b, off, len);
+				}
+			};
+		}
+
+		private void messageTransferred(String id, String method, boolean error, int length, boolean fromServer) {
+			long now = System.nanoTime();
+			if (method != null) {
+				for (MessageListener listener : listeners) {
+					listener.messageTransferred(method, fromServer);
+				}
+			}
+			if (method != null && id != null) {
+				MethodCounters methodCounters = getCounters(method);
+				methodCounters.requests.incrementAndGet();
+				methodCounters.inFlight.incrementAndGet();
+				methodCounters.addBytes(length, fromServer);
+				pendingRequests.put(getRequestKey(id, fromServer), new PendingRequest(method, now));
+			} else if (method != null) {
+				MethodCounters methodCounters = getCounters(method);
+				methodCounters.notifications.incrementAndGet();
+				methodCounters.addBytes(length, fromServer);
+			} else if (id != null) {
+				// a response to a request sent from the other side
+				PendingRequest request = pendingRequests.remove(getRequestKey(id, !fromServer));
+				if (request != null) {
+					MethodCounters methodCounters = getCounters(request.method);
+					methodCounters.inFlight.decrementAndGet();
+					methodCounters.responses.incrementAndGet();
+					if (error) {
+						methodCounters.errors.incrementAndGet();
+					}
+					methodCounters.addBytes(length, fromServer);
+					methodCounters.recordLatency((now - request.startNanos) / 1000000);
+				}
+			}
+		}
+
+		/**
+		 * Forgets the requests still waiting for a response, to be called when the
+		 * server is stopped and will never answer them
+		 */
+		public void close() {
+			connections.remove(this);
+			for (PendingRequest request : pendingRequests.values()) {
+				getCounters(request.method).inFlight.decrementAndGet();
+			}
+			pendingRequests.clear();
+		}
+	}
+
+	private MethodCounters getCounters(String method) {
+		return counters.computeIfAbsent(method, key -> new MethodCounters());
+	}
+
+	private static String getRequestKey(String id, boolean fromServer) {
+		return (fromServer ? "server:" : "client:") + id; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -0,0 +1,150 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.corrosion.cargo.core.CargoProjectTester;
+import org.eclipse.lsp4e.LanguageServiceAccessor;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.ui.IStartup;
+
+/**
+ * Starts the Rust language server in the background for the Cargo projects
+ * open at startup and for the ones opened later, so that the initial build of
+ * the server is done before the first Rust file is opened. LSP4E only starts
+ * the server for a file of the Rust content type, so a Rust file of the project
+ * is used to start it.
+ */
+@SuppressWarnings("restriction")
+public class LanguageServerWarmUp implements IStartup {
+	private static final long INITIALIZATION_TIMEOUT_MINUTES = 5;
+	private static final String[] ENTRY_POINTS = new String[] { "src/main.rs", "src/lib.rs" }; //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final IResourceChangeListener PROJECT_OPEN_LISTENER = event -> {
+		if (event.getDelta() == null || !isEnabled()) {
+			return;
+		}
+		for (IResourceDelta projectDelta : event.getDelta().getAffectedChildren()) {
+			boolean opened = (projectDelta.getFlags() & IResourceDelta.OPEN) != 0
+					|| projectDelta.getKind() == IResourceDelta.ADDED;
+			IProject project = (IProject) projectDelta.getResource();
+			if (opened && project.isOpen()) {
+				warmUp(project);
+			}
+		}
+	};
+
+	// set when the setup check failed, so that it is not run and logged again for
+	// each project until the preferences change
+	private static volatile boolean isRustMissing;
+
+	@Override
+	public void earlyStartup() {
+		CorrosionPlugin.getDefault().getPreferenceStore().addPropertyChangeListener(event -> isRustMissing = false);
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(PROJECT_OPEN_LISTENER,
+				IResourceChangeEvent.POST_CHANGE);
+		if (isEnabled()) {
+			for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+				if (project.isOpen()) {
+					warmUp(project);
+				}
+			}
+		}
+	}
+
+	private static boolean isEnabled() {
+		return CorrosionPlugin.getDefault().getPreferenceStore()
+				.getBoolean(CorrosionPreferenceInitializer.LANGUAGE_SERVER_WARM_UP_PREFERENCE);
+	}
+
+	/**
+	 * Starts the language server of the given project if it is a Cargo project
+	 * and the language server is installed
+	 */
+	public static void warmUp(IProject project) {
+		if (isRustMissing || !new CargoProjectTester().test(project, CargoProjectTester.PROPERTY_NAME, null, null)) {
+			return;
+		}
+		Job job = new Job(NLS.bind(Messages.LanguageServerWarmUp_startingLanguageServer, project.getName())) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				// do not prompt for the Rust setup when no editor asked for the server,
+				// the prompt would also be opened outside of the UI thread
+				if (isRustMissing || !checkSetup()) {
+					return Status.OK_STATUS;
+				}
+				IFile file = findRustFile(project);
+				if (file == null || monitor.isCanceled()) {
+					return Status.OK_STATUS;
+				}
+				try {
+					LanguageServiceAccessor.getInitializedLanguageServers(file, null)
+							.get(INITIALIZATION_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (Exception e) {
+					CorrosionPlugin.logError(e);
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		job.setPriority(Job.DECORATE);
+		job.schedule();
+	}
+
+	private static synchronized boolean checkSetup() {
+		if (!isRustMissing && !RLSStreamConnectionProvider.isSetUp(LanguageServerBackends.getActive())) {
+			isRustMissing = true;
+		}
+		return !isRustMissing;
+	}
+
+	private static IFile findRustFile(IProject project) {
+		for (String entryPoint : ENTRY_POINTS) {
+			IFile file = project.getFile(entryPoint);
+			if (file.exists()) {
+				return file;
+			}
+		}
+		List<IFile> rustFiles = new ArrayList<>();
+		try {
+			project.accept(resource -> {
+				if (!rustFiles.isEmpty() || resource.isDerived()) {
+					return false;
+				}
+				if (resource.getType() == IResource.FILE && "rs".equals(resource.getFileExtension())) { //$NON-NLS-1$
+					rustFiles.add((IFile) resource);
+				}
+				return true;
+			});
+		} catch (CoreException e) {
+			CorrosionPlugin.logError(e);
+		}
+		return rustFiles.isEmpty() ? null : rustFiles.get(0);
+	}
+}
@@ -0,0 +1,259 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.LongSupplier;
+
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Keeps the documents larger than the large file mode threshold away from the
+ * language server, so that their full content is neither sent nor analyzed on
+ * every change:
+ * <ul>
+ * <li>their synchronization notifications are dropped from the messages sent
+ * to the server, which reads them from the disk instead,</li>
+ * <li>the requests about them, such as hover, formatting, rename or code
+ * actions, are answered locally with a <code>null</code> result, which LSP
+ * allows for all of them. The server would otherwise answer against the
+ * content on disk, and edits computed on it would be applied at the wrong
+ * offsets of the modified editor buffer.</li>
+ * </ul>
+ * As in {@link LargeFileMode}, a document is large when it is opened with a
+ * length above the threshold, and stays so until it is closed.
+ *
+ * @see LargeFileMode
+ */
+public class LargeDocumentFilter {
+	private static final String DID_OPEN = "textDocument/didOpen"; //$NON-NLS-1$
+	private static final String DID_CLOSE = "textDocument/didClose"; //$NON-NLS-1$
+	private static final byte[] END_OF_STREAM = new byte[0];
+
+	private final LongSupplier threshold;
+	private final Set<String> largeDocuments = ConcurrentHashMap.newKeySet();
+	private final BlockingQueue<byte[]> clientInput = new LinkedBlockingQueue<>();
+
+	public LargeDocumentFilter() {
+		this(LargeFileMode::getThreshold);
+	}
+
+	/**
+	 * @param threshold
+	 *            supplies the length of text above which opened documents are
+	 *            filtered
+	 */
+	public LargeDocumentFilter(LongSupplier threshold) {
+		this.threshold = threshold;
+	}
+
+	/**
+	 * @return the stream of the messages sent to the server, without the
+	 *         messages about large documents
+	 */
+	public OutputStream filter(OutputStream serverInput) {
+		JsonRpcFrameDecoder decoder = new JsonRpcFrameDecoder(message -> {
+			if (accept(message)) {
+				try {
+					serverInput.write(frame(message));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		});
+		return new FilterOutputStream(serverInput) {
+			@Override
+			public void write(int b) throws IOException {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				try {
+					decoder.decode(b, off, len);
+				} catch (UncheckedIOException e) {
+					throw e.getCause();
+				}
+			}
+		};
+	}
+
+	/**
+	 * @return the stream of the messages received from the server, with the
+	 *         responses to the requests answered locally. The messages are read
+	 *         from the server by a separate thread, so that the local responses
+	 *         are not delayed until the server sends something.
+	 */
+	public InputStream filter(InputStream serverOutput) {
+		Thread reader = new Thread(() -> readMessages(serverOutput), "Corrosion language server reader"); //$NON-NLS-1$
+		reader.setDaemon(true);
+		reader.start();
+		return new InputStream() {
+			private byte[] frame = new byte[0];
+			private int position;
+
+			@Override
+			public int read() throws IOException {
+				byte[] b = new byte[1];
+				return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				if (len == 0) {
+					return 0;
+				}
+				while (position == frame.length) {
+					if (frame == END_OF_STREAM) {
+						return -1;
+					}
+					try {
+						frame = clientInput.take();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new InterruptedIOException();
+					}
+					position = 0;
+				}
+				int count = Math.min(len, frame.length - position);
+				System.arraycopy(frame, position, b, off, count);
+				position += count;
+				return count;
+			}
+
+			@Override
+			public int available() {
+				return frame.length - position;
+			}
+
+			@Override
+			public void close() throws IOException {
+				serverOutput.close();
+			}
+		};
+	}
+
+	/**
+	 * Queues the messages of the server whole, so that the local responses are
+	 * inserted between them
+	 */
+	private void readMessages(InputStream serverOutput) {
+		JsonRpcFrameDecoder decoder = new JsonRpcFrameDecoder(message -> clientInput.add(frame(message)));
+		byte[] buffer = new byte[8192];
+		try {
+			int read;
+			while ((read = serverOutput.read(buffer)) != -1) {
+				decoder.decode(buffer, 0, read);
+			}
+		} catch (IOException e) {
+			// the server stopped
+		}
+		clientInput.add(END_OF_STREAM);
+	}
+
+	private static byte[] frame(byte[] message) {
+		byte[] header = ("Content-Length: " + message.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII); //$NON-NLS-1$ //$NON-NLS-2$
+		byte[] frame = new byte[header.length + message.length];
+		System.arraycopy(header, 0, frame, 0, header.length);
+		System.arraycopy(message, 0, frame, header.length, message.length);
+		return frame;
+	}
+
+	/**
+	 * @return whether the message is to be sent to the server
+	 */
+	boolean accept(byte[] message) {
+		// only the opening of a large document starts filtering
+		if (largeDocuments.isEmpty() && message.length <= threshold.getAsLong()) {
+			return true;
+		}
+		String method = null;
+		String id = null;
+		String uri = null;
+		long textLength = -1;
+		try (JsonReader reader = new JsonReader(
+				new InputStreamReader(new ByteArrayInputStream(message), StandardCharsets.UTF_8))) {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if ("method".equals(name)) { //$NON-NLS-1$
+					method = reader.nextString();
+				} else if ("id".equals(name) && reader.peek() == JsonToken.NUMBER) { //$NON-NLS-1$
+					id = reader.nextString();
+				} else if ("id".equals(name) && reader.peek() == JsonToken.STRING) { //$NON-NLS-1$
+					id = new JsonPrimitive(reader.nextString()).toString();
+				} else if ("params".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) { //$NON-NLS-1$
+					reader.beginObject();
+					while (reader.hasNext()) {
+						if ("textDocument".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_OBJECT) { //$NON-NLS-1$
+							reader.beginObject();
+							while (reader.hasNext()) {
+								String field = reader.nextName();
+								if ("uri".equals(field)) { //$NON-NLS-1$
+									uri = reader.nextString();
+								} else if ("text".equals(field)) { //$NON-NLS-1$
+									textLength = reader.nextString().length();
+								} else {
+									reader.skipValue();
+								}
+							}
+							reader.endObject();
+						} else {
+							reader.skipValue();
+						}
+					}
+					reader.endObject();
+				} else {
+					reader.skipValue();
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			return true;
+		}
+		if (method == null || uri == null) {
+			return true;
+		}
+		if (DID_OPEN.equals(method)) {
+			if (textLength > threshold.getAsLong()) {
+				largeDocuments.add(uri);
+				return false;
+			}
+			largeDocuments.remove(uri);
+			return true;
+		} else if (DID_CLOSE.equals(method)) {
+			return !largeDocuments.remove(uri);
+		} else if (!largeDocuments.contains(uri)) {
+			return true;
+		}
+		if (id != null) {
+			respond(id);
+		}
+		return false;
+	}
+
+	private void respond(String id) {
+		String response = "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"result\":null}"; //$NON-NLS-1$ //$NON-NLS-2$
+		clientInput.add(frame(response.getBytes(StandardCharsets.UTF_8)));
+	}
+}
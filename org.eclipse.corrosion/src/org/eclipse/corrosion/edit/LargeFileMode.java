@@ -0,0 +1,60 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+import org.eclipse.jface.text.IDocument;
+
+/**
+ * Rust documents larger than the configured threshold are highlighted with the
+ * {@link RustLexer}, get no snippet completion and are not synchronized with
+ * the language server. A document is large when it is opened with a length
+ * above the threshold, and stays so until it is closed, whatever its later
+ * edits or threshold changes: the decision is the same for the editor and for
+ * the {@link LargeDocumentFilter}, which only sees the document when it is
+ * opened in the language server.
+ *
+ * @see LargeDocumentFilter
+ * @see LargeFileModeIndicator
+ */
+public class LargeFileMode {
+	public static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+	private static final Map<IDocument, Boolean> LARGE_DOCUMENTS = Collections
+			.synchronizedMap(new WeakHashMap<>());
+
+	private LargeFileMode() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	/**
+	 * @return the length above which documents are large, or
+	 *         {@link Long#MAX_VALUE} if large file mode is disabled
+	 */
+	public static long getThreshold() {
+		int megabytes = CorrosionPlugin.getDefault().getPreferenceStore()
+				.getInt(CorrosionPreferenceInitializer.LARGE_FILE_THRESHOLD_PREFERENCE);
+		return megabytes <= 0 ? Long.MAX_VALUE : megabytes * BYTES_PER_MEGABYTE;
+	}
+
+	/**
+	 * @return whether the document was larger than the threshold when it was
+	 *         first checked, which is when its editor opens it
+	 */
+	public static boolean isLarge(IDocument document) {
+		return document != null
+				&& LARGE_DOCUMENTS.computeIfAbsent(document, key -> key.getLength() > getThreshold());
+	}
+}
@@ -0,0 +1,149 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import org.eclipse.corrosion.Messages;
+import org.eclipse.jface.action.IStatusLineManager;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.ui.IPartListener2;
+import org.eclipse.ui.IWindowListener;
+import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.IWorkbenchPartReference;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.texteditor.IDocumentProvider;
+import org.eclipse.ui.texteditor.ITextEditor;
+
+/**
+ * Shows in the status line that the active Rust editor is in large file mode.
+ * It is installed when the first large file is opened.
+ */
+public class LargeFileModeIndicator implements IPartListener2, IWindowListener {
+	private static final LargeFileModeIndicator INSTANCE = new LargeFileModeIndicator();
+
+	private boolean installed;
+	private ITextEditor indicatedEditor;
+
+	private LargeFileModeIndicator() {
+	}
+
+	/**
+	 * Starts tracking the active editors of the workbench windows if needed, and
+	 * updates the indicator of the editor being opened. To be called in the UI
+	 * thread
+	 */
+	public static void install() {
+		if (!INSTANCE.installed) {
+			INSTANCE.installed = true;
+			PlatformUI.getWorkbench().addWindowListener(INSTANCE);
+			for (IWorkbenchWindow window : PlatformUI.getWorkbench().getWorkbenchWindows()) {
+				INSTANCE.windowOpened(window);
+			}
+		}
+		// the editor being opened is activated before its document is loaded
+		PlatformUI.getWorkbench().getDisplay().asyncExec(() -> {
+			IWorkbenchWindow window = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+			if (window != null && window.getActivePage() != null) {
+				INSTANCE.update(window.getActivePage().getActivePartReference());
+			}
+		});
+	}
+
+	private void update(IWorkbenchPartReference reference) {
+		IWorkbenchPart part = reference == null ? null : reference.getPart(false);
+		if (!(part instanceof ITextEditor)) {
+			return;
+		}
+		ITextEditor editor = (ITextEditor) part;
+		IDocumentProvider provider = editor.getDocumentProvider();
+		IDocument document = provider == null ? null : provider.getDocument(editor.getEditorInput());
+		if (editor.getEditorInput().getName().endsWith(".rs") && LargeFileMode.isLarge(document)) { //$NON-NLS-1$
+			getStatusLine(editor).setMessage(NLS.bind(Messages.LargeFileModeIndicator_active,
+					document.getLength() / LargeFileMode.BYTES_PER_MEGABYTE));
+			indicatedEditor = editor;
+		} else {
+			clear();
+		}
+	}
+
+	private void clear() {
+		if (indicatedEditor != null) {
+			getStatusLine(indicatedEditor).setMessage(null);
+			indicatedEditor = null;
+		}
+	}
+
+	private static IStatusLineManager getStatusLine(ITextEditor editor) {
+		return editor.getEditorSite().getActionBars().getStatusLineManager();
+	}
+
+	@Override
+	public void partActivated(IWorkbenchPartReference partRef) {
+		update(partRef);
+	}
+
+	@Override
+	public void partInputChanged(IWorkbenchPartReference partRef) {
+		update(partRef);
+	}
+
+	@Override
+	public void partDeactivated(IWorkbenchPartReference partRef) {
+		if (indicatedEditor != null && partRef.getPart(false) == indicatedEditor) {
+			clear();
+		}
+	}
+
+	@Override
+	public void partClosed(IWorkbenchPartReference partRef) {
+		partDeactivated(partRef);
+	}
+
+	@Override
+	public void partBroughtToTop(IWorkbenchPartReference partRef) {
+		// Only the active editor is indicated
+	}
+
+	@Override
+	public void partOpened(IWorkbenchPartReference partRef) {
+		// Only the active editor is indicated
+	}
+
+	@Override
+	public void partHidden(IWorkbenchPartReference partRef) {
+		// Only the active editor is indicated
+	}
+
+	@Override
+	public void partVisible(IWorkbenchPartReference partRef) {
+		// Only the active editor is indicated
+	}
+
+	@Override
+	public void windowOpened(IWorkbenchWindow window) {
+		window.getPartService().addPartListener(this);
+	}
+
+	@Override
+	public void windowClosed(IWorkbenchWindow window) {
+		window.getPartService().removePartListener(this);
+	}
+
+	@Override
+	public void windowActivated(IWorkbenchWindow window) {
+		// The part listener follows the active editor
+	}
+
+	@Override
+	public void windowDeactivated(IWorkbenchWindow window) {
+		// The part listener follows the active editor
+	}
+}
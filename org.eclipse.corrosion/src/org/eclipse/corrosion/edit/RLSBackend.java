@@ -0,0 +1,107 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+import org.eclipse.corrosion.RustManager;
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.lsp4j.Location;
+import org.eclipse.lsp4j.TextDocumentPositionParams;
+import org.eclipse.lsp4j.services.LanguageServer;
+
+/**
+ * The Rust Language Server, installed as the <code>rls-preview</code> rustup
+ * component or configured by path
+ */
+public class RLSBackend implements LanguageServerBackend {
+	public static final String ID = "rls"; //$NON-NLS-1$
+	private static final String RUST_SETTINGS = "rust"; //$NON-NLS-1$
+
+	@Override
+	public String getId() {
+		return ID;
+	}
+
+	@Override
+	public String getLabel() {
+		return "RLS"; //$NON-NLS-1$
+	}
+
+	@Override
+	public List<String> getCommand() {
+		return RustManager.getRLSCommand();
+	}
+
+	@Override
+	public Map<String, String> getEnvironment() {
+		return RustManager.getRLSEnvironment();
+	}
+
+	@Override
+	public Object getInitializationOptions(URI rootUri) {
+		return Collections.singletonMap("settings", getSettings(rootUri)); //$NON-NLS-1$
+	}
+
+	/**
+	 * @param rootUri
+	 *            the root of the project the server is started for, may be
+	 *            <code>null</code>
+	 * @return the build settings of the RLS, in the format of the
+	 *         <code>workspace/didChangeConfiguration</code> notification. The
+	 *         RLS replaces all its settings on each notification, so the target
+	 *         directory of the project is always included.
+	 */
+	public static Map<String, Object> getSettings(URI rootUri) {
+		Map<String, Object> rust = getRustSettings();
+		String targetDir = LanguageServerTargetDirectory.getPath(rootUri);
+		if (targetDir != null) {
+			rust.put("target_dir", targetDir); //$NON-NLS-1$
+		}
+		return Collections.singletonMap(RUST_SETTINGS, rust);
+	}
+
+	private static Map<String, Object> getRustSettings() {
+		IPreferenceStore store = CorrosionPlugin.getDefault().getPreferenceStore();
+		Map<String, Object> rust = new LinkedHashMap<>();
+		rust.put("wait_to_build", store.getInt(CorrosionPreferenceInitializer.RLS_WAIT_TO_BUILD_PREFERENCE)); //$NON-NLS-1$
+		rust.put("build_on_save", store.getBoolean(CorrosionPreferenceInitializer.RLS_BUILD_ON_SAVE_PREFERENCE)); //$NON-NLS-1$
+		int jobs = store.getInt(CorrosionPreferenceInitializer.RLS_JOBS_PREFERENCE);
+		if (jobs > 0) {
+			rust.put("jobs", jobs); //$NON-NLS-1$
+		}
+		rust.put("all_targets", store.getBoolean(CorrosionPreferenceInitializer.RLS_ALL_TARGETS_PREFERENCE)); //$NON-NLS-1$
+		rust.put("cfg_test", store.getBoolean(CorrosionPreferenceInitializer.RLS_CFG_TEST_PREFERENCE)); //$NON-NLS-1$
+		rust.put("racer_completion", //$NON-NLS-1$
+				store.getBoolean(CorrosionPreferenceInitializer.RLS_RACER_COMPLETION_PREFERENCE));
+		return rust;
+	}
+
+	@Override
+	public CompletableFuture<List<? extends Location>> implementations(LanguageServer languageServer,
+			TextDocumentPositionParams position) {
+		CompletableFuture<List<Location>> request = ((RLSServerInterface) languageServer).implementations(position);
+		CompletableFuture<List<? extends Location>> result = request.thenApply(locations -> locations);
+		result.whenComplete((locations, error) -> {
+			if (error instanceof CancellationException) {
+				request.cancel(true);
+			}
+		});
+		return result;
+	}
+}
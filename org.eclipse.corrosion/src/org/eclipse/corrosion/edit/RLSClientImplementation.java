@@ -12,29 +12,41 @@
  *******************************************************************************/
 package org.eclipse.corrosion.edit;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.corrosion.extensions.ProgressIndicatorJob;
 import org.eclipse.corrosion.extensions.ProgressParams;
 import org.eclipse.lsp4e.LanguageClientImpl;
 import org.eclipse.lsp4j.jsonrpc.services.JsonNotification;
+import org.eclipse.lsp4j.services.LanguageServer;
 
 @SuppressWarnings("restriction")
 public class RLSClientImplementation extends LanguageClientImpl {
-	private static Map<String, ProgressIndicatorJob> progressJobs = new HashMap<>();
+	private static final Map<String, ProgressIndicatorJob> progressJobs = new ConcurrentHashMap<>();
+
+	public RLSClientImplementation() {
+		LanguageServerRegistry.getInstance().register(this);
+	}
+
+	LanguageServer getServer() {
+		return getLanguageServer();
+	}
 
 	@JsonNotification("window/progress")
 	public void progress(ProgressParams progress) {
 		String id = progress.getId();
-		if (!progressJobs.containsKey(id)) {
-			ProgressIndicatorJob job = new ProgressIndicatorJob(progress.getTitle());
-			job.schedule();
-			progressJobs.put(id, job);
-		}
-		progressJobs.get(id).update(progress);
 		if (progress.isDone()) {
-			progressJobs.remove(id);
+			ProgressIndicatorJob job = progressJobs.remove(id);
+			if (job != null) {
+				job.update(progress);
+			}
+			return;
 		}
+		progressJobs.computeIfAbsent(id, key -> {
+			ProgressIndicatorJob job = new ProgressIndicatorJob(progress.getTitle());
+			job.schedule();
+			return job;
+		}).update(progress);
 	}
 }
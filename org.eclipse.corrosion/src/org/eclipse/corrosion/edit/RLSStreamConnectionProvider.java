@@ -12,14 +12,17 @@
  *******************************************************************************/
 package org.eclipse.corrosion.edit;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
 
-import org.eclipse.core.runtime.Platform;
 import org.eclipse.corrosion.CorrosionPreferencePage;
 import org.eclipse.corrosion.Messages;
 import org.eclipse.corrosion.RustManager;
+import org.eclipse.corrosion.process.ProcessRunner;
 import org.eclipse.jface.dialogs.IDialogConstants;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.preference.PreferenceDialog;
@@ -33,19 +36,43 @@ public class RLSStreamConnectionProvider implements StreamConnectionProvider {
 
 	private static boolean hasCancelledSetup = false;
 	private Process process;
+	private InputStream inputStream;
+	private OutputStream outputStream;
+	private volatile LanguageServerBackend backend;
+	private LanguageServerTrafficMeter.Connection trafficConnection;
+	private volatile URI rootUri;
 
 	@Override public void start() throws IOException {
-		boolean wereSystemPropertiesSet = RustManager.setSystemProperties();
-		String rls = RustManager.getRLS();
-		if ((rls.isEmpty() || !wereSystemPropertiesSet)) {
+		if (!isSetUp(getBackend())) {
 			showSetupRustNotification();
 			return;
 		}
-		String[] command = new String[] { "/bin/bash", "-c", rls }; //$NON-NLS-1$ //$NON-NLS-2$
-		if (Platform.getOS().equals(Platform.OS_WIN32)) {
-			command = new String[] { "cmd", "/c", rls }; //$NON-NLS-1$ //$NON-NLS-2$
+		List<String> command = backend.getCommand();
+		this.process = new ProcessRunner(command).environment(backend.getEnvironment()).start();
+		this.trafficConnection = LanguageServerTrafficMeter.getInstance().connect();
+		LargeDocumentFilter largeDocumentFilter = new LargeDocumentFilter();
+		// metered on the client side of the filter, so that the listeners of the
+		// meter still see the notifications the filter keeps from the server
+		this.inputStream = trafficConnection.meter(largeDocumentFilter.filter(process.getInputStream()));
+		this.outputStream = trafficConnection.meter(largeDocumentFilter.filter(process.getOutputStream()));
+		LanguageServerLog.getInstance().drain(process.getErrorStream());
+		LanguageServerSupervisor.getInstance().serverStarted(process);
+		if (rootUri != null) {
+			LanguageServerSupervisor.getInstance().serverInitializing(process, rootUri);
 		}
-		this.process = Runtime.getRuntime().exec(command);
+		LanguageServerRegistry.getInstance().connectionStarted(this);
+	}
+
+	/**
+	 * Logs the parts of the Rust setup that are missing to start the server of
+	 * the given backend
+	 *
+	 * @return <code>true</code> if the server can be started
+	 */
+	static boolean isSetUp(LanguageServerBackend backend) {
+		// rust-analyzer finds the sysroot by itself
+		boolean wereSystemPropertiesSet = backend != LanguageServerBackends.RLS || RustManager.setSystemProperties();
+		return !backend.getCommand().isEmpty() && wereSystemPropertiesSet;
 	}
 
 	private void showSetupRustNotification() {
@@ -67,19 +94,59 @@ public class RLSStreamConnectionProvider implements StreamConnectionProvider {
 		hasCancelledSetup = newValue;
 	}
 
+	/**
+	 * @return the backend of this connection, selected once by the first of
+	 *         {@link #start()} and {@link #getInitializationOptions(URI)}, whose
+	 *         order depends on the LSP4E version
+	 */
+	private synchronized LanguageServerBackend getBackend() {
+		if (backend == null) {
+			backend = LanguageServerBackends.getActive();
+		}
+		return backend;
+	}
+
+	@Override public Object getInitializationOptions(URI rootUri) {
+		this.rootUri = rootUri;
+		if (process != null) {
+			LanguageServerSupervisor.getInstance().serverInitializing(process, rootUri);
+		}
+		// requested once per server, with the root the target directory depends on
+		LanguageServerTargetDirectory.prepare(rootUri);
+		return getBackend().getInitializationOptions(rootUri);
+	}
+
+	/**
+	 * @return the root of the project the server is initialized for, or
+	 *         <code>null</code> if unknown
+	 */
+	URI getRootUri() {
+		return rootUri;
+	}
+
 	@Override public InputStream getInputStream() {
-		return process.getInputStream();
+		return inputStream;
 	}
 
 	@Override public OutputStream getOutputStream() {
-		return process.getOutputStream();
+		return outputStream;
 	}
 
 	@Override public void stop() {
-		process.destroy();
+		LanguageServerRegistry.getInstance().connectionStopped(this);
+		if (process != null) {
+			LanguageServerSupervisor.getInstance().serverStopping(process);
+			process.destroy();
+		}
+		if (trafficConnection != null) {
+			trafficConnection.close();
+		}
 	}
 
+	/**
+	 * The error stream is drained by {@link LanguageServerLog}
+	 */
 	@Override public InputStream getErrorStream() {
-		return process.getErrorStream();
+		return new ByteArrayInputStream(new byte[0]);
 	}
 }
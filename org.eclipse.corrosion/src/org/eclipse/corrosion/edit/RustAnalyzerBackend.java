@@ -0,0 +1,131 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.corrosion.RustManager;
+import org.eclipse.corrosion.ToolLocator;
+import org.eclipse.corrosion.ToolchainInventoryService;
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.lsp4j.Location;
+import org.eclipse.lsp4j.TextDocumentPositionParams;
+import org.eclipse.lsp4j.services.LanguageServer;
+
+/**
+ * rust-analyzer, whose incremental analysis does not need a full
+ * <code>cargo check</code> to answer requests
+ */
+public class RustAnalyzerBackend implements LanguageServerBackend {
+	public static final String ID = "rust-analyzer"; //$NON-NLS-1$
+	// the standard library sources in the sysroot, before and after Rust 1.47
+	private static final String[] RUST_SOURCES = new String[] { "lib/rustlib/src/rust/library", //$NON-NLS-1$
+			"lib/rustlib/src/rust/src" }; //$NON-NLS-1$
+
+	@Override
+	public String getId() {
+		return ID;
+	}
+
+	@Override
+	public String getLabel() {
+		return "rust-analyzer"; //$NON-NLS-1$
+	}
+
+	/**
+	 * Uses the configured path, then the <code>rust-analyzer</code> binary of the
+	 * selected rustup toolchain, then the one found on the <code>PATH</code>
+	 */
+	@Override
+	public List<String> getCommand() {
+		IPreferenceStore store = CorrosionPlugin.getDefault().getPreferenceStore();
+		String rustAnalyzer = store.getString(CorrosionPreferenceInitializer.RUST_ANALYZER_PATH_PREFERENCE);
+		if (rustAnalyzer.isEmpty()) {
+			rustAnalyzer = getToolchainRustAnalyzer(store);
+		}
+		if (rustAnalyzer.isEmpty()) {
+			rustAnalyzer = ToolLocator.locate(ToolLocator.RUST_ANALYZER);
+		}
+		if (rustAnalyzer.isEmpty()) {
+			CorrosionPlugin.getDefault().getLog().log(new Status(IStatus.ERROR, CorrosionPlugin.PLUGIN_ID,
+					Messages.RustAnalyzerBackend_rustAnalyzerNotFound));
+			return Collections.emptyList();
+		}
+		return Collections.singletonList(rustAnalyzer);
+	}
+
+	private static String getToolchainRustAnalyzer(IPreferenceStore store) {
+		String toolchain = store.getString(CorrosionPreferenceInitializer.TOOLCHAIN_ID_PREFERENCE);
+		String installedToolchain = toolchain.isEmpty() ? null
+				: ToolchainInventoryService.getInventory().findToolchain(toolchain);
+		if (installedToolchain == null) {
+			return ""; //$NON-NLS-1$
+		}
+		Path rustAnalyzer = ToolchainInventoryService.getToolchainsDirectory().resolve(installedToolchain)
+				.resolve("bin").resolve(Platform.getOS().equals(Platform.OS_WIN32) ? "rust-analyzer.exe" : "rust-analyzer"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		return Files.isExecutable(rustAnalyzer) ? rustAnalyzer.toString() : ""; //$NON-NLS-1$
+	}
+
+	/**
+	 * rust-analyzer asks rustc for the sysroot by itself, so rustc is not forked
+	 * here. Only the sources of the standard library of a configured sysroot
+	 * are passed on, as <code>RUST_SRC_PATH</code>.
+	 */
+	@Override
+	public Map<String, String> getEnvironment() {
+		String sysroot = RustManager.getConfiguredSysrootPath();
+		if (sysroot.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		for (String sources : RUST_SOURCES) {
+			Path rustSrc = Paths.get(sysroot, sources);
+			if (Files.isDirectory(rustSrc)) {
+				return Collections.singletonMap("RUST_SRC_PATH", rustSrc.toString()); //$NON-NLS-1$
+			}
+		}
+		return Collections.emptyMap();
+	}
+
+	@Override
+	public Object getInitializationOptions(URI rootUri) {
+		Map<String, Object> options = new HashMap<>();
+		Map<String, Object> checkOnSave = new HashMap<>();
+		checkOnSave.put("enable", Boolean.TRUE); //$NON-NLS-1$
+		String targetDir = LanguageServerTargetDirectory.getPath(rootUri);
+		if (targetDir != null) {
+			checkOnSave.put("extraArgs", Arrays.asList("--target-dir", targetDir)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		options.put("checkOnSave", checkOnSave); //$NON-NLS-1$
+		options.put("procMacro", Collections.singletonMap("enable", Boolean.TRUE)); //$NON-NLS-1$ //$NON-NLS-2$
+		options.put("cargo", Collections.singletonMap("loadOutDirsFromCheck", Boolean.TRUE)); //$NON-NLS-1$ //$NON-NLS-2$
+		return options;
+	}
+
+	@Override
+	public CompletableFuture<List<? extends Location>> implementations(LanguageServer languageServer,
+			TextDocumentPositionParams position) {
+		return languageServer.getTextDocumentService().implementation(position);
+	}
+}
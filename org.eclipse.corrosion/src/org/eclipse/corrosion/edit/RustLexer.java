@@ -0,0 +1,322 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A lexer of Rust code for syntax highlighting. The constructs which can span
+ * several lines, block comments, strings, raw strings and attributes, are
+ * encoded in an <code>int</code> state, so that text can be lexed from the
+ * start of any line given the state at the start of that line.
+ */
+public class RustLexer {
+	public static final int INITIAL_STATE = 0;
+
+	private static final int NORMAL = 0;
+	private static final int BLOCK_COMMENT = 1;
+	private static final int DOC_BLOCK_COMMENT = 2;
+	private static final int STRING = 3;
+	private static final int RAW_STRING = 4;
+	private static final int ATTRIBUTE = 5;
+	private static final int KIND_BITS = 3;
+	private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+	private static final int MAX_KEYWORD_LENGTH = 8;
+	private static final int MAX_ESCAPE_LENGTH = 10;
+
+	private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList("as", "break", "const", "continue", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			"crate", "dyn", "else", "enum", "extern", "false", "fn", "for", "if", "impl", "in", "let", "loop", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$ //$NON-NLS-13$
+			"match", "mod", "move", "mut", "pub", "ref", "return", "self", "Self", "static", "struct", "super", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$
+			"trait", "true", "type", "unsafe", "use", "where", "while")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+
+	public enum TokenType {
+		DEFAULT, KEYWORD, MACRO, LIFETIME, ATTRIBUTE, NUMBER, STRING, CHARACTER, COMMENT, DOC_COMMENT
+	}
+
+	@FunctionalInterface
+	public interface TokenConsumer {
+		void accept(TokenType type, int offset, int length);
+	}
+
+	private final CharSequence text;
+	private TokenConsumer consumer;
+	private int position;
+	private int end;
+
+	public RustLexer(CharSequence text) {
+		this.text = text;
+	}
+
+	/**
+	 * Lexes the text between the two offsets, the start being the start of a line
+	 *
+	 * @param state
+	 *            the state at the start offset, {@link #INITIAL_STATE} at the start
+	 *            of the text
+	 * @param tokenConsumer
+	 *            called with the tokens in order, or <code>null</code> to only
+	 *            compute the state at the end
+	 * @return the state at the end offset
+	 */
+	public int lex(int start, int endOffset, int state, TokenConsumer tokenConsumer) {
+		this.consumer = tokenConsumer;
+		this.position = start;
+		this.end = endOffset;
+		int current = resume(state);
+		while (position < end && current == NORMAL) {
+			current = lexToken();
+		}
+		this.consumer = null;
+		return current;
+	}
+
+	private int resume(int state) {
+		int kind = state & KIND_MASK;
+		int payload = state >>> KIND_BITS;
+		int start = position;
+		switch (kind) {
+		case BLOCK_COMMENT:
+			return scanBlockComment(start, payload, false);
+		case DOC_BLOCK_COMMENT:
+			return scanBlockComment(start, payload, true);
+		case STRING:
+			return scanString(start);
+		case RAW_STRING:
+			return scanRawString(start, payload);
+		case ATTRIBUTE:
+			return scanAttribute(start, payload);
+		default:
+			return NORMAL;
+		}
+	}
+
+	private int lexToken() {
+		int start = position;
+		char c = text.charAt(position);
+		if (c == '/' && peek(1) == '/') {
+			boolean doc = (peek(2) == '/' && peek(3) != '/') || peek(2) == '!';
+			while (position < end && text.charAt(position) != '\n' && text.charAt(position) != '\r') {
+				position++;
+			}
+			emit(doc ? TokenType.DOC_COMMENT : TokenType.COMMENT, start);
+			return NORMAL;
+		} else if (c == '/' && peek(1) == '*') {
+			boolean doc = (peek(2) == '*' && peek(3) != '*' && peek(3) != '/') || peek(2) == '!';
+			position += 2;
+			return scanBlockComment(start, 1, doc);
+		} else if (c == '"') {
+			position++;
+			return scanString(start);
+		} else if (c == '\'') {
+			return lexQuote(start);
+		} else if (c == '#' && (peek(1) == '[' || (peek(1) == '!' && peek(2) == '['))) {
+			position += peek(1) == '[' ? 2 : 3;
+			return scanAttribute(start, 1);
+		} else if (Character.isDigit(c)) {
+			lexNumber(start);
+			return NORMAL;
+		} else if (Character.isLetter(c) || c == '_') {
+			return lexWord(start);
+		}
+		position++;
+		emit(TokenType.DEFAULT, start);
+		return NORMAL;
+	}
+
+	private int lexWord(int start) {
+		char c = text.charAt(start);
+		if (c == 'b' && peek(1) == '"') {
+			position += 2;
+			return scanString(start);
+		} else if (c == 'b' && peek(1) == '\'') {
+			position++;
+			return lexQuote(start);
+		}
+		int rawStart = c == 'b' && peek(1) == 'r' ? 1 : 0;
+		if (text.charAt(start + rawStart) == 'r') {
+			int hashes = 0;
+			while (peek(rawStart + 1 + hashes) == '#') {
+				hashes++;
+			}
+			if (peek(rawStart + 1 + hashes) == '"') {
+				position += rawStart + hashes + 2;
+				return scanRawString(start, hashes);
+			}
+		}
+		while (position < end && isIdentifierPart(text.charAt(position))) {
+			position++;
+		}
+		if (peek(0) == '!' && peek(1) != '=') {
+			position++;
+			emit(TokenType.MACRO, start);
+		} else if (position - start <= MAX_KEYWORD_LENGTH
+				&& KEYWORDS.contains(text.subSequence(start, position).toString())) {
+			emit(TokenType.KEYWORD, start);
+		} else {
+			emit(TokenType.DEFAULT, start);
+		}
+		return NORMAL;
+	}
+
+	private void lexNumber(int start) {
+		while (position < end) {
+			char c = text.charAt(position);
+			if (Character.isLetterOrDigit(c) || c == '_' || (c == '.' && Character.isDigit(peek(1)))) {
+				position++;
+			} else {
+				break;
+			}
+		}
+		emit(TokenType.NUMBER, start);
+	}
+
+	/**
+	 * Lexes a character literal, or a lifetime or label which have no closing
+	 * quote
+	 */
+	private int lexQuote(int start) {
+		position++;
+		if (peek(0) == '\\') {
+			for (int i = 1; i < MAX_ESCAPE_LENGTH && peek(i) != '\n' && peek(i) != 0; i++) {
+				if (peek(i) == '\'' && i > 1) {
+					position += i + 1;
+					emit(TokenType.CHARACTER, start);
+					return NORMAL;
+				}
+			}
+		} else {
+			int length = Character.isHighSurrogate(peek(0)) ? 2 : 1;
+			if (peek(0) != '\'' && peek(0) != '\n' && peek(length) == '\'') {
+				position += length + 1;
+				emit(TokenType.CHARACTER, start);
+				return NORMAL;
+			}
+			if (Character.isLetter(peek(0)) || peek(0) == '_') {
+				while (position < end && isIdentifierPart(text.charAt(position))) {
+					position++;
+				}
+				emit(TokenType.LIFETIME, start);
+				return NORMAL;
+			}
+		}
+		emit(TokenType.DEFAULT, start);
+		return NORMAL;
+	}
+
+	private int scanBlockComment(int start, int initialDepth, boolean doc) {
+		int depth = initialDepth;
+		while (position < end) {
+			char c = text.charAt(position);
+			if (c == '/' && peek(1) == '*') {
+				depth++;
+				position += 2;
+			} else if (c == '*' && peek(1) == '/') {
+				depth--;
+				position += 2;
+				if (depth == 0) {
+					emit(doc ? TokenType.DOC_COMMENT : TokenType.COMMENT, start);
+					return NORMAL;
+				}
+			} else {
+				position++;
+			}
+		}
+		emit(doc ? TokenType.DOC_COMMENT : TokenType.COMMENT, start);
+		return state(doc ? DOC_BLOCK_COMMENT : BLOCK_COMMENT, depth);
+	}
+
+	private int scanString(int start) {
+		while (position < end) {
+			char c = text.charAt(position);
+			if (c == '\\') {
+				position = Math.min(position + 2, end);
+			} else {
+				position++;
+				if (c == '"') {
+					emit(TokenType.STRING, start);
+					return NORMAL;
+				}
+			}
+		}
+		emit(TokenType.STRING, start);
+		return STRING;
+	}
+
+	private int scanRawString(int start, int hashes) {
+		while (position < end) {
+			char c = text.charAt(position++);
+			if (c == '"') {
+				int closing = 0;
+				while (closing < hashes && peek(0) == '#') {
+					closing++;
+					position++;
+				}
+				if (closing == hashes) {
+					emit(TokenType.STRING, start);
+					return NORMAL;
+				}
+			}
+		}
+		emit(TokenType.STRING, start);
+		return state(RAW_STRING, hashes);
+	}
+
+	/**
+	 * Scans an attribute up to its closing bracket, skipping the strings it
+	 * contains when they are on a single line
+	 */
+	private int scanAttribute(int start, int initialDepth) {
+		int depth = initialDepth;
+		while (position < end) {
+			char c = text.charAt(position++);
+			if (c == '[') {
+				depth++;
+			} else if (c == ']') {
+				depth--;
+				if (depth == 0) {
+					emit(TokenType.ATTRIBUTE, start);
+					return NORMAL;
+				}
+			} else if (c == '"') {
+				while (position < end && peek(0) != '"' && peek(0) != '\n') {
+					position += peek(0) == '\\' ? 2 : 1;
+				}
+				position = Math.min(position + 1, end);
+			}
+		}
+		emit(TokenType.ATTRIBUTE, start);
+		return state(ATTRIBUTE, depth);
+	}
+
+	/**
+	 * @return the character at the given distance of the current position, or
+	 *         <code>0</code> past the end
+	 */
+	private char peek(int distance) {
+		int index = position + distance;
+		return index < end ? text.charAt(index) : 0;
+	}
+
+	private void emit(TokenType type, int start) {
+		if (consumer != null && position > start) {
+			consumer.accept(type, start, position - start);
+		}
+	}
+
+	private static int state(int kind, int payload) {
+		return kind | (payload << KIND_BITS);
+	}
+
+	private static boolean isIdentifierPart(char c) {
+		return Character.isLetterOrDigit(c) || c == '_';
+	}
+}
@@ -0,0 +1,297 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.edit.RustLexer.TokenType;
+import org.eclipse.jface.resource.ColorRegistry;
+import org.eclipse.jface.resource.JFaceResources;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITypedRegion;
+import org.eclipse.jface.text.Region;
+import org.eclipse.jface.text.TextPresentation;
+import org.eclipse.jface.text.presentation.IPresentationDamager;
+import org.eclipse.jface.text.presentation.IPresentationRepairer;
+import org.eclipse.jface.text.presentation.PresentationReconciler;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.StyleRange;
+import org.eclipse.swt.graphics.RGB;
+
+/**
+ * Highlights Rust code with the {@link RustLexer}. The lexer state at the start
+ * of each line is kept up to date as the document changes, so that only the
+ * changed lines, and the following lines whose state changed, are lexed again.
+ */
+public class RustLexerPresentationReconciler extends PresentationReconciler {
+	private final LexerDamagerRepairer damagerRepairer = new LexerDamagerRepairer();
+
+	public RustLexerPresentationReconciler() {
+		setDamager(damagerRepairer, IDocument.DEFAULT_CONTENT_TYPE);
+		setRepairer(damagerRepairer, IDocument.DEFAULT_CONTENT_TYPE);
+	}
+
+	@Override
+	public void uninstall() {
+		super.uninstall();
+		damagerRepairer.setDocument(null);
+	}
+
+	private static final class LexerDamagerRepairer
+			implements IPresentationDamager, IPresentationRepairer, IDocumentListener {
+		private static final String COLOR_PREFIX = CorrosionPlugin.PLUGIN_ID + ".lexer."; //$NON-NLS-1$
+
+		private IDocument document;
+		private int[] lineStates;
+		private int lineCount;
+		private DocumentEvent lastEvent;
+		private IRegion lastDamage;
+		private Map<TokenType, StyleRange> styles;
+
+		@Override
+		public void setDocument(IDocument newDocument) {
+			if (document == newDocument) {
+				return;
+			}
+			if (document != null) {
+				document.removeDocumentListener(this);
+			}
+			document = newDocument;
+			lineStates = null;
+			lastEvent = null;
+			if (document != null) {
+				document.addDocumentListener(this);
+			}
+		}
+
+		@Override
+		public void documentAboutToBeChanged(DocumentEvent event) {
+			// The states are updated once the document is changed
+		}
+
+		@Override
+		public void documentChanged(DocumentEvent event) {
+			update(event);
+		}
+
+		@Override
+		public IRegion getDamageRegion(ITypedRegion partition, DocumentEvent event,
+				boolean documentPartitioningChanged) {
+			update(event);
+			return lastDamage;
+		}
+
+		/**
+		 * Updates the line states after a change, once per change whether the
+		 * document listener or the damager is called first
+		 */
+		private void update(DocumentEvent event) {
+			if (event == lastEvent) {
+				return;
+			}
+			lastEvent = event;
+			if (lineStates == null) {
+				computeLineStates();
+				lastDamage = new Region(0, document.getLength());
+				return;
+			}
+			try {
+				lastDamage = updateLineStates(event);
+			} catch (BadLocationException e) {
+				computeLineStates();
+				lastDamage = new Region(0, document.getLength());
+			}
+		}
+
+		private void computeLineStates() {
+			lineCount = document.getNumberOfLines();
+			lineStates = new int[lineCount];
+			RustLexer lexer = new RustLexer(document.get());
+			int state = RustLexer.INITIAL_STATE;
+			try {
+				for (int line = 0; line < lineCount; line++) {
+					lineStates[line] = state;
+					IRegion region = document.getLineInformation(line);
+					state = lexer.lex(region.getOffset(), getLineEnd(line, region), state, null);
+				}
+			} catch (BadLocationException e) {
+				CorrosionPlugin.logError(e);
+			}
+		}
+
+		/**
+		 * @return the damaged region, from the first changed line to the first line
+		 *         whose state did not change
+		 */
+		private IRegion updateLineStates(DocumentEvent event) throws BadLocationException {
+			int newLineCount = document.getNumberOfLines();
+			int delta = newLineCount - lineCount;
+			int firstLine = document.getLineOfOffset(event.getOffset());
+			int insertedLength = event.getText() == null ? 0 : event.getText().length();
+			int lastChangedLine = document.getLineOfOffset(event.getOffset() + insertedLength);
+			if (firstLine >= lineCount || lastChangedLine - delta >= lineCount) {
+				throw new BadLocationException();
+			}
+
+			if (lineStates.length < newLineCount) {
+				lineStates = Arrays.copyOf(lineStates, newLineCount + newLineCount / 2);
+			}
+			// the lines after the change keep their states
+			System.arraycopy(lineStates, lastChangedLine - delta + 1, lineStates, lastChangedLine + 1,
+					newLineCount - lastChangedLine - 1);
+			lineCount = newLineCount;
+
+			int start = document.getLineOffset(firstLine);
+			int end = document.getLineOffset(lastChangedLine) + document.getLineLength(lastChangedLine);
+			RustLexer lexer = new RustLexer(new DocumentCharSequence(document));
+			int state = lineStates[firstLine];
+			int line = firstLine;
+			while (line < lineCount) {
+				IRegion region = document.getLineInformation(line);
+				state = lexer.lex(region.getOffset(), getLineEnd(line, region), state, null);
+				line++;
+				if (line == lineCount || (line > lastChangedLine && lineStates[line] == state)) {
+					break;
+				}
+				lineStates[line] = state;
+			}
+			end = Math.max(end, line == lineCount ? document.getLength() : document.getLineOffset(line));
+			return new Region(start, end - start);
+		}
+
+		private int getLineEnd(int line, IRegion region) throws BadLocationException {
+			return region.getOffset() + document.getLineLength(line);
+		}
+
+		@Override
+		public void createPresentation(TextPresentation presentation, ITypedRegion damage) {
+			if (lineStates == null) {
+				computeLineStates();
+			}
+			if (styles == null) {
+				styles = createStyles();
+			}
+			try {
+				int firstLine = document.getLineOfOffset(damage.getOffset());
+				int start = document.getLineOffset(firstLine);
+				int damageEnd = damage.getOffset() + damage.getLength();
+				int lastLine = document.getLineOfOffset(damageEnd);
+				int end = Math.min(document.getLineOffset(lastLine) + document.getLineLength(lastLine),
+						document.getLength());
+				String text = document.get(start, end - start);
+				StyleRange[] pending = new StyleRange[1];
+				new RustLexer(text).lex(0, text.length(), lineStates[firstLine], (type, offset, length) -> {
+					int tokenStart = Math.max(start + offset, damage.getOffset());
+					int tokenEnd = Math.min(start + offset + length, damageEnd);
+					if (tokenStart >= tokenEnd) {
+						return;
+					}
+					StyleRange style = styles.get(type);
+					StyleRange previous = pending[0];
+					if (previous != null && previous.similarTo(style) && previous.start + previous.length == tokenStart) {
+						previous.length += tokenEnd - tokenStart;
+						return;
+					}
+					if (previous != null) {
+						presentation.addStyleRange(previous);
+					}
+					StyleRange range = (StyleRange) style.clone();
+					range.start = tokenStart;
+					range.length = tokenEnd - tokenStart;
+					pending[0] = range;
+				});
+				if (pending[0] != null) {
+					presentation.addStyleRange(pending[0]);
+				}
+			} catch (BadLocationException e) {
+				CorrosionPlugin.logError(e);
+			}
+		}
+
+		private static Map<TokenType, StyleRange> createStyles() {
+			Map<TokenType, StyleRange> result = new EnumMap<>(TokenType.class);
+			result.put(TokenType.DEFAULT, new StyleRange());
+			result.put(TokenType.KEYWORD, createStyle(TokenType.KEYWORD, new RGB(127, 0, 85), SWT.BOLD));
+			result.put(TokenType.MACRO, createStyle(TokenType.MACRO, new RGB(100, 70, 50), SWT.NORMAL));
+			result.put(TokenType.LIFETIME, createStyle(TokenType.LIFETIME, new RGB(0, 128, 128), SWT.ITALIC));
+			result.put(TokenType.ATTRIBUTE, createStyle(TokenType.ATTRIBUTE, new RGB(100, 100, 100), SWT.NORMAL));
+			result.put(TokenType.NUMBER, createStyle(TokenType.NUMBER, new RGB(125, 125, 125), SWT.NORMAL));
+			result.put(TokenType.STRING, createStyle(TokenType.STRING, new RGB(42, 0, 255), SWT.NORMAL));
+			result.put(TokenType.CHARACTER, createStyle(TokenType.CHARACTER, new RGB(42, 0, 255), SWT.NORMAL));
+			result.put(TokenType.COMMENT, createStyle(TokenType.COMMENT, new RGB(63, 127, 95), SWT.NORMAL));
+			result.put(TokenType.DOC_COMMENT, createStyle(TokenType.DOC_COMMENT, new RGB(63, 95, 191), SWT.NORMAL));
+			return result;
+		}
+
+		/**
+		 * Creates a style whose color is kept in the JFace color registry, which
+		 * owns and disposes it
+		 */
+		private static StyleRange createStyle(TokenType type, RGB defaultColor, int fontStyle) {
+			ColorRegistry registry = JFaceResources.getColorRegistry();
+			String key = COLOR_PREFIX + type.name().toLowerCase(Locale.ROOT);
+			if (!registry.hasValueFor(key)) {
+				registry.put(key, defaultColor);
+			}
+			StyleRange style = new StyleRange();
+			style.foreground = registry.get(key);
+			style.fontStyle = fontStyle;
+			return style;
+		}
+	}
+
+	/**
+	 * A view of a document as a character sequence, to lex a few lines without
+	 * copying the document
+	 */
+	private static final class DocumentCharSequence implements CharSequence {
+		private final IDocument document;
+
+		private DocumentCharSequence(IDocument document) {
+			this.document = document;
+		}
+
+		@Override
+		public int length() {
+			return document.getLength();
+		}
+
+		@Override
+		public char charAt(int index) {
+			try {
+				return document.getChar(index);
+			} catch (BadLocationException e) {
+				throw new IndexOutOfBoundsException(e.getMessage());
+			}
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			try {
+				return document.get(start, end - start);
+			} catch (BadLocationException e) {
+				throw new IndexOutOfBoundsException(e.getMessage());
+			}
+		}
+
+		@Override
+		public String toString() {
+			return document.get();
+		}
+	}
+}
@@ -0,0 +1,284 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import org.eclipse.jface.text.rules.ICharacterScanner;
+import org.eclipse.jface.text.rules.IPredicateRule;
+import org.eclipse.jface.text.rules.IToken;
+import org.eclipse.jface.text.rules.RuleBasedPartitionScanner;
+import org.eclipse.jface.text.rules.RuleBasedScanner;
+import org.eclipse.jface.text.rules.Token;
+
+/**
+ * Scans the comments, including nested block comments, and the string, raw
+ * string and character literals of Rust code
+ *
+ * @see RustPartitions
+ */
+public class RustPartitionScanner extends RuleBasedPartitionScanner {
+
+	public RustPartitionScanner() {
+		IToken comment = new Token(RustPartitions.COMMENT);
+		IToken string = new Token(RustPartitions.STRING);
+		setPredicateRules(new IPredicateRule[] { new LineCommentRule(comment), new BlockCommentRule(comment),
+				new RawStringRule(string), new CharacterRule(string), new StringRule(string) });
+	}
+
+	/**
+	 * Reads characters from a scanner, keeping count to be able to go back
+	 */
+	private static final class CountingScanner {
+		private final ICharacterScanner scanner;
+		private int count;
+
+		private CountingScanner(ICharacterScanner scanner) {
+			this.scanner = scanner;
+		}
+
+		private int read() {
+			count++;
+			return scanner.read();
+		}
+
+		private void unread() {
+			count--;
+			scanner.unread();
+		}
+
+		private void restore() {
+			while (count > 0) {
+				unread();
+			}
+			while (count < 0) {
+				read();
+			}
+		}
+	}
+
+	/**
+	 * A rule which always scans its partition from the beginning, since the
+	 * nesting level or delimiter of the partition cannot be known when resuming
+	 * in its middle, and since comments and strings of different kinds share the
+	 * same content type
+	 */
+	private abstract static class RustRule implements IPredicateRule {
+		private final IToken token;
+
+		private RustRule(IToken token) {
+			this.token = token;
+		}
+
+		@Override
+		public IToken getSuccessToken() {
+			return token;
+		}
+
+		@Override
+		public IToken evaluate(ICharacterScanner scanner) {
+			return evaluate(scanner, false);
+		}
+
+		@Override
+		public IToken evaluate(ICharacterScanner scanner, boolean resume) {
+			CountingScanner counting = new CountingScanner(scanner);
+			if (resume && scanner instanceof RuleBasedScanner) {
+				for (int i = ((RuleBasedScanner) scanner).getTokenLength(); i > 0; i--) {
+					counting.unread();
+				}
+			}
+			if (matches(counting)) {
+				return token;
+			}
+			counting.restore();
+			return Token.UNDEFINED;
+		}
+
+		protected abstract boolean matches(CountingScanner scanner);
+	}
+
+	/**
+	 * Line comments, including their line delimiter
+	 */
+	private static final class LineCommentRule extends RustRule {
+		private LineCommentRule(IToken token) {
+			super(token);
+		}
+
+		@Override
+		protected boolean matches(CountingScanner scanner) {
+			if (scanner.read() != '/' || scanner.read() != '/') {
+				return false;
+			}
+			while (true) {
+				int c = scanner.read();
+				if (c == ICharacterScanner.EOF) {
+					scanner.unread();
+					return true;
+				} else if (c == '\n') {
+					return true;
+				} else if (c == '\r') {
+					if (scanner.read() != '\n') {
+						scanner.unread();
+					}
+					return true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Block comments, which can be nested in Rust
+	 */
+	private static final class BlockCommentRule extends RustRule {
+		private BlockCommentRule(IToken token) {
+			super(token);
+		}
+
+		@Override
+		protected boolean matches(CountingScanner scanner) {
+			if (scanner.read() != '/' || scanner.read() != '*') {
+				return false;
+			}
+			int depth = 1;
+			int previous = 0;
+			while (depth > 0) {
+				int c = scanner.read();
+				if (c == ICharacterScanner.EOF) {
+					scanner.unread();
+					return true;
+				}
+				if (previous == '/' && c == '*') {
+					depth++;
+					c = 0;
+				} else if (previous == '*' && c == '/') {
+					depth--;
+					c = 0;
+				}
+				previous = c;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Raw strings and raw byte strings, such as <code>r#"a "quoted" word"#</code>
+	 */
+	private static final class RawStringRule extends RustRule {
+		private RawStringRule(IToken token) {
+			super(token);
+		}
+
+		@Override
+		protected boolean matches(CountingScanner scanner) {
+			int c = scanner.read();
+			if (c == 'b') {
+				c = scanner.read();
+			}
+			if (c != 'r') {
+				return false;
+			}
+			int hashes = 0;
+			c = scanner.read();
+			while (c == '#') {
+				hashes++;
+				c = scanner.read();
+			}
+			if (c != '"') {
+				return false;
+			}
+			while (true) {
+				c = scanner.read();
+				if (c == ICharacterScanner.EOF) {
+					scanner.unread();
+					return true;
+				}
+				if (c == '"' && closingHashesFollow(scanner, hashes)) {
+					return true;
+				}
+			}
+		}
+
+		private static boolean closingHashesFollow(CountingScanner scanner, int hashes) {
+			for (int i = 0; i < hashes; i++) {
+				if (scanner.read() != '#') {
+					scanner.unread();
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * String and byte string literals, which can span several lines
+	 */
+	private static final class StringRule extends RustRule {
+		private StringRule(IToken token) {
+			super(token);
+		}
+
+		@Override
+		protected boolean matches(CountingScanner scanner) {
+			if (scanner.read() != '"') {
+				return false;
+			}
+			while (true) {
+				int c = scanner.read();
+				if (c == '\\') {
+					c = scanner.read();
+				}
+				if (c == ICharacterScanner.EOF) {
+					scanner.unread();
+					return true;
+				} else if (c == '"') {
+					return true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Character literals, which unlike lifetimes and labels have a closing quote
+	 */
+	private static final class CharacterRule extends RustRule {
+		private static final int MAX_ESCAPE_LENGTH = 10;
+
+		private CharacterRule(IToken token) {
+			super(token);
+		}
+
+		@Override
+		protected boolean matches(CountingScanner scanner) {
+			if (scanner.read() != '\'') {
+				return false;
+			}
+			int c = scanner.read();
+			if (c == '\\') {
+				// the first character of an escape sequence may be a quote
+				for (int i = 0; i < MAX_ESCAPE_LENGTH; i++) {
+					c = scanner.read();
+					if (c == '\'' && i > 0) {
+						return true;
+					} else if (c == ICharacterScanner.EOF || c == '\n' || c == '\r') {
+						return false;
+					}
+				}
+				return false;
+			}
+			if (c == ICharacterScanner.EOF || c == '\'' || c == '\n' || c == '\r') {
+				return false;
+			}
+			if (Character.isHighSurrogate((char) c)) {
+				scanner.read();
+			}
+			return scanner.read() == '\'';
+		}
+	}
+}
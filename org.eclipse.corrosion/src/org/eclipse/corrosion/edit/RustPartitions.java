@@ -0,0 +1,103 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.BadPartitioningException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension3;
+import org.eclipse.jface.text.ITypedRegion;
+import org.eclipse.jface.text.rules.FastPartitioner;
+
+/**
+ * The comments and string literals of Rust documents, tracked by an
+ * incremental partitioner so that checking whether an offset is in a comment
+ * or a string is a lookup in the partitions of the document.
+ */
+public class RustPartitions {
+	public static final String PARTITIONING = "org.eclipse.corrosion.rustPartitioning"; //$NON-NLS-1$
+	public static final String COMMENT = "__rust_comment"; //$NON-NLS-1$
+	public static final String STRING = "__rust_string"; //$NON-NLS-1$
+	private static final String[] CONTENT_TYPES = new String[] { COMMENT, STRING };
+
+	private RustPartitions() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Installs the Rust partitioner on the document if it is not already. It is
+	 * installed on first use, so that the documents which are never queried, such
+	 * as the ones in {@link LargeFileMode}, are not partitioned.
+	 */
+	public static void connect(IDocument document) {
+		if (!(document instanceof IDocumentExtension3)) {
+			return;
+		}
+		IDocumentExtension3 extension = (IDocumentExtension3) document;
+		synchronized (document) {
+			if (extension.getDocumentPartitioner(PARTITIONING) == null) {
+				FastPartitioner partitioner = new FastPartitioner(new RustPartitionScanner(), CONTENT_TYPES);
+				extension.setDocumentPartitioner(PARTITIONING, partitioner);
+				partitioner.connect(document);
+			}
+		}
+	}
+
+	/**
+	 * @return whether text inserted at the offset would be part of a comment
+	 */
+	public static boolean isInComment(IDocument document, int offset) {
+		return isInside(document, offset, COMMENT);
+	}
+
+	/**
+	 * @return whether text inserted at the offset would be part of a string or
+	 *         character literal
+	 */
+	public static boolean isInString(IDocument document, int offset) {
+		return isInside(document, offset, STRING);
+	}
+
+	private static boolean isInside(IDocument document, int offset, String contentType) {
+		if (offset <= 0 || !(document instanceof IDocumentExtension3)) {
+			return false;
+		}
+		connect(document);
+		try {
+			ITypedRegion region = ((IDocumentExtension3) document).getPartition(PARTITIONING, offset - 1, false);
+			if (!contentType.equals(region.getType())) {
+				return false;
+			}
+			return offset < region.getOffset() + region.getLength() || !isTerminated(document, region);
+		} catch (BadLocationException | BadPartitioningException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return whether the partition ends with its closing delimiter, rather than
+	 *         with the end of the document
+	 */
+	private static boolean isTerminated(IDocument document, ITypedRegion region) throws BadLocationException {
+		int start = region.getOffset();
+		int end = start + region.getLength();
+		char last = document.getChar(end - 1);
+		if (region.getLength() >= 2 && document.getChar(start) == '/' && document.getChar(start + 1) == '/') {
+			return last == '\n' || last == '\r';
+		}
+		if (end < document.getLength()) {
+			return true;
+		}
+		if (COMMENT.equals(region.getType())) {
+			return region.getLength() >= 4 && document.getChar(end - 2) == '*' && last == '/';
+		}
+		return region.getLength() >= 2 && (last == '"' || last == '#' || last == '\'');
+	}
+}
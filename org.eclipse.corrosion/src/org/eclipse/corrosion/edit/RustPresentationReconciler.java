@@ -0,0 +1,101 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.ITextInputListener;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.presentation.IPresentationDamager;
+import org.eclipse.jface.text.presentation.IPresentationReconciler;
+import org.eclipse.jface.text.presentation.IPresentationReconcilerExtension;
+import org.eclipse.jface.text.presentation.IPresentationRepairer;
+import org.eclipse.tm4e.ui.text.TMPresentationReconciler;
+
+/**
+ * Highlights Rust editors with the TextMate grammar or with the
+ * {@link RustLexer}, as chosen in the preferences when the editor is opened.
+ * Large files always use the lexer, so the choice is made once the document of
+ * the editor is known.
+ */
+public class RustPresentationReconciler implements IPresentationReconciler, IPresentationReconcilerExtension {
+	public static final String TEXTMATE = "textmate"; //$NON-NLS-1$
+	public static final String LEXER = "lexer"; //$NON-NLS-1$
+
+	private ITextViewer viewer;
+	private IPresentationReconciler delegate;
+	private final ITextInputListener inputListener = new ITextInputListener() {
+		@Override
+		public void inputDocumentAboutToBeChanged(IDocument oldInput, IDocument newInput) {
+			// The delegate is chosen once the document is set
+		}
+
+		@Override
+		public void inputDocumentChanged(IDocument oldInput, IDocument newInput) {
+			if (delegate == null && newInput != null) {
+				installDelegate(newInput);
+			}
+		}
+	};
+
+	@Override
+	public void install(ITextViewer textViewer) {
+		viewer = textViewer;
+		if (viewer.getDocument() != null) {
+			installDelegate(viewer.getDocument());
+		} else {
+			viewer.addTextInputListener(inputListener);
+		}
+	}
+
+	private void installDelegate(IDocument document) {
+		viewer.removeTextInputListener(inputListener);
+		String highlighting = CorrosionPlugin.getDefault().getPreferenceStore()
+				.getString(CorrosionPreferenceInitializer.SYNTAX_HIGHLIGHTING_PREFERENCE);
+		if (LargeFileMode.isLarge(document)) {
+			LargeFileModeIndicator.install();
+			delegate = new RustLexerPresentationReconciler();
+		} else if (LEXER.equals(highlighting)) {
+			delegate = new RustLexerPresentationReconciler();
+		} else {
+			delegate = new TMPresentationReconciler();
+		}
+		// the delegate handles the document already set in the viewer
+		delegate.install(viewer);
+	}
+
+	@Override
+	public void uninstall() {
+		if (viewer != null) {
+			viewer.removeTextInputListener(inputListener);
+		}
+		if (delegate != null) {
+			delegate.uninstall();
+		}
+	}
+
+	@Override
+	public IPresentationDamager getDamager(String contentType) {
+		return delegate != null ? delegate.getDamager(contentType) : null;
+	}
+
+	@Override
+	public IPresentationRepairer getRepairer(String contentType) {
+		return delegate != null ? delegate.getRepairer(contentType) : null;
+	}
+
+	@Override
+	public String getDocumentPartitioning() {
+		return delegate instanceof IPresentationReconcilerExtension
+				? ((IPresentationReconcilerExtension) delegate).getDocumentPartitioning()
+				: null;
+	}
+}
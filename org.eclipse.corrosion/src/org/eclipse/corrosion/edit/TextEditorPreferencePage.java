@@ -12,25 +12,43 @@
  *******************************************************************************/
 package org.eclipse.corrosion.edit;
 
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
 import org.eclipse.corrosion.Messages;
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.preference.PreferencePage;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Group;
+import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Link;
+import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 import org.eclipse.ui.preferences.IWorkbenchPreferenceContainer;
 
 public class TextEditorPreferencePage extends PreferencePage implements IWorkbenchPreferencePage {
+	private static final int MAX_LARGE_FILE_THRESHOLD = 1024;
+
+	private IPreferenceStore store;
+	private Button textMateButton;
+	private Button lexerButton;
+	private Spinner largeFileThresholdSpinner;
 
 	@Override
 	public void init(IWorkbench workbench) {
-		noDefaultAndApplyButton();
+		store = doGetPreferenceStore();
+	}
+
+	@Override
+	protected IPreferenceStore doGetPreferenceStore() {
+		return CorrosionPlugin.getDefault().getPreferenceStore();
 	}
 
 	@Override
@@ -76,6 +94,48 @@ public class TextEditorPreferencePage extends PreferencePage implements IWorkben
 			}
 		});
 
+		Group highlightingGroup = new Group(container, SWT.NONE);
+		highlightingGroup.setText(Messages.TextEditorPreferencePage_syntaxHighlighting);
+		highlightingGroup.setLayout(new GridLayout(1, false));
+		highlightingGroup.setLayoutData(new GridData(SWT.FILL, SWT.TOP, true, false));
+		textMateButton = new Button(highlightingGroup, SWT.RADIO);
+		textMateButton.setText(Messages.TextEditorPreferencePage_textMate);
+		lexerButton = new Button(highlightingGroup, SWT.RADIO);
+		lexerButton.setText(Messages.TextEditorPreferencePage_lexer);
+		selectHighlighting(store.getString(CorrosionPreferenceInitializer.SYNTAX_HIGHLIGHTING_PREFERENCE));
+
+		Composite largeFileContainer = new Composite(highlightingGroup, SWT.NONE);
+		GridLayout largeFileLayout = new GridLayout(2, false);
+		largeFileLayout.marginWidth = 0;
+		largeFileContainer.setLayout(largeFileLayout);
+		Label largeFileThresholdLabel = new Label(largeFileContainer, SWT.NONE);
+		largeFileThresholdLabel.setText(Messages.TextEditorPreferencePage_largeFileThreshold);
+		largeFileThresholdSpinner = new Spinner(largeFileContainer, SWT.BORDER);
+		largeFileThresholdSpinner.setValues(store.getInt(CorrosionPreferenceInitializer.LARGE_FILE_THRESHOLD_PREFERENCE),
+				0, MAX_LARGE_FILE_THRESHOLD, 0, 1, 10);
+
 		return parent;
 	}
+
+	private void selectHighlighting(String highlighting) {
+		boolean lexer = RustPresentationReconciler.LEXER.equals(highlighting);
+		lexerButton.setSelection(lexer);
+		textMateButton.setSelection(!lexer);
+	}
+
+	@Override
+	protected void performDefaults() {
+		selectHighlighting(store.getDefaultString(CorrosionPreferenceInitializer.SYNTAX_HIGHLIGHTING_PREFERENCE));
+		largeFileThresholdSpinner.setSelection(store.getDefaultInt(CorrosionPreferenceInitializer.LARGE_FILE_THRESHOLD_PREFERENCE));
+		super.performDefaults();
+	}
+
+	@Override
+	public boolean performOk() {
+		store.setValue(CorrosionPreferenceInitializer.SYNTAX_HIGHLIGHTING_PREFERENCE,
+				lexerButton.getSelection() ? RustPresentationReconciler.LEXER : RustPresentationReconciler.TEXTMATE);
+		store.setValue(CorrosionPreferenceInitializer.LARGE_FILE_THRESHOLD_PREFERENCE,
+				largeFileThresholdSpinner.getSelection());
+		return true;
+	}
 }
\ No newline at end of file
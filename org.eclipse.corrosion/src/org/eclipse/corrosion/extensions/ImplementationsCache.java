@@ -0,0 +1,96 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.extensions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.corrosion.edit.LanguageServerTrafficMeter;
+import org.eclipse.lsp4j.Location;
+import org.eclipse.lsp4j.Position;
+
+/**
+ * Caches the results of the implementations requests by document, document
+ * version and position. Since an edit of any file may add or remove
+ * implementations, the whole cache is invalidated whenever a document is
+ * changed or saved, or the language server is restarted.
+ */
+public class ImplementationsCache {
+	private static final int MAX_ENTRIES = 100;
+	private static final Set<String> INVALIDATING_METHODS = new HashSet<>(
+			Arrays.asList("initialize", "textDocument/didChange", "textDocument/didSave", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					"workspace/didChangeWatchedFiles")); //$NON-NLS-1$
+
+	private static final ImplementationsCache INSTANCE = new ImplementationsCache();
+
+	private final Map<String, List<Location>> entries = new LinkedHashMap<String, List<Location>>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, List<Location>> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+	private long generation = 0;
+
+	private ImplementationsCache() {
+		LanguageServerTrafficMeter.getInstance().addMessageListener((method, fromServer) -> {
+			if (!fromServer && INVALIDATING_METHODS.contains(method)) {
+				invalidate();
+			}
+		});
+	}
+
+	public static ImplementationsCache getInstance() {
+		return INSTANCE;
+	}
+
+	public static String getKey(String uri, long documentVersion, Position position) {
+		return uri + '@' + documentVersion + ':' + position.getLine() + ':' + position.getCharacter();
+	}
+
+	/**
+	 * @return the cached implementations, or <code>null</code> if they are not
+	 *         known
+	 */
+	public synchronized List<Location> get(String key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * @return the current generation of the cache, to be passed to
+	 *         {@link #put(String, long, List)} with the results of a request sent
+	 *         after this call
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Caches the result of a request, unless the cache was invalidated since the
+	 * request was sent
+	 */
+	public synchronized void put(String key, long requestGeneration, List<? extends Location> locations) {
+		if (requestGeneration == generation) {
+			entries.put(key, Collections.unmodifiableList(new ArrayList<>(locations)));
+		}
+	}
+
+	public synchronized void invalidate() {
+		entries.clear();
+		generation++;
+	}
+}
@@ -12,19 +12,29 @@
  *******************************************************************************/
 package org.eclipse.corrosion.extensions;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.corrosion.Messages;
-import org.eclipse.corrosion.edit.RLSServerInterface;
+import org.eclipse.corrosion.edit.LanguageServerBackends;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
-import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.lsp4e.LSPEclipseUtils;
 import org.eclipse.lsp4e.LanguageServerPlugin;
 import org.eclipse.lsp4e.LanguageServiceAccessor.LSPDocumentInfo;
@@ -51,9 +61,13 @@ public class ImplementationsSearchQuery extends FileSearchQuery {
 
 	private FileSearchResult result;
 
-	private long startTime;
+	private static final long CANCELLATION_CHECK_MILLIS = 100;
 
-	private CompletableFuture<List<Location>> references;
+	private volatile long startTime;
+
+	private volatile long endTime;
+
+	private volatile CompletableFuture<List<? extends Location>> references;
 
 	public ImplementationsSearchQuery(int offset, LSPDocumentInfo info) throws BadLocationException {
 		super("", false, false, null); //$NON-NLS-1$
@@ -65,6 +79,7 @@ public class ImplementationsSearchQuery extends FileSearchQuery {
 
 	@Override public IStatus run(IProgressMonitor monitor) {
 		startTime = System.currentTimeMillis();
+		endTime = 0;
 		// Cancel last references future if needed.
 		if (references != null) {
 			references.cancel(true);
@@ -78,46 +93,158 @@ public class ImplementationsSearchQuery extends FileSearchQuery {
 			params.setContext(new ReferenceContext(true));
 			params.setTextDocument(new TextDocumentIdentifier(info.getFileUri().toString()));
 			params.setPosition(position);
-			info.getInitializedLanguageClient().thenCompose(languageServer -> ((RLSServerInterface) languageServer).implementations(params)).thenAccept(locs -> {
-				// Loop for each LSP Location and convert it to Match search.
-				for (Location loc : locs) {
-					Match match = toMatch(loc);
-					result.addMatch(match);
+			ImplementationsCache cache = ImplementationsCache.getInstance();
+			String cacheKey = getCacheKey();
+			List<Location> cachedLocations = cacheKey != null ? cache.get(cacheKey) : null;
+			if (cachedLocations != null) {
+				addMatches(cachedLocations);
+				endTime = System.currentTimeMillis();
+				return Status.OK_STATUS;
+			}
+			long generation = cache.getGeneration();
+			// exists before the language server is ready, so that the search can be
+			// cancelled at any time
+			CompletableFuture<List<? extends Location>> request = new CompletableFuture<>();
+			references = request;
+			info.getInitializedLanguageClient().thenAccept(languageServer -> {
+				CompletableFuture<List<? extends Location>> sent = LanguageServerBackends.getActive()
+						.implementations(languageServer, params);
+				// sends a cancellation notification to the language server, at once if
+				// the search was cancelled while the server was starting
+				request.whenComplete((implementations, error) -> {
+					if (request.isCancelled()) {
+						sent.cancel(true);
+					}
+				});
+				sent.whenComplete((implementations, error) -> {
+					if (error != null) {
+						request.completeExceptionally(error);
+					} else {
+						request.complete(implementations);
+					}
+				});
+			}).exceptionally(error -> {
+				request.completeExceptionally(error);
+				return null;
+			});
+			CompletableFuture<Void> matches = request.thenAcceptAsync(implementations -> {
+				// null when the document is too large to be sent to the server
+				List<? extends Location> locs = implementations != null ? implementations : Collections.emptyList();
+				if (cacheKey != null) {
+					cache.put(cacheKey, generation, locs);
 				}
+				// matches are shown file by file as they are converted
+				addMatches(locs);
 			});
-			return Status.OK_STATUS;
+			return awaitMatches(matches, monitor);
 		} catch (Exception ex) {
 			return new Status(IStatus.ERROR, LanguageServerPlugin.getDefault().getBundle().getSymbolicName(), ex.getMessage(), ex);
 		}
 	}
 
 	/**
-	 * Convert the given LSP {@link Location} to Eclipse search {@link Match}.
-	 *
-	 * @param location
-	 *            the LSP location to convert.
-	 * @return the converted Eclipse search {@link Match}.
+	 * Waits for all the matches to be added, cancelling the request sent to the
+	 * language server if the search is cancelled
 	 */
-	private static Match toMatch(Location location) {
+	private IStatus awaitMatches(CompletableFuture<Void> matches, IProgressMonitor monitor)
+			throws InterruptedException {
+		monitor.beginTask(getLabel(), IProgressMonitor.UNKNOWN);
 		try {
-			IResource resource = LSPEclipseUtils.findResourceFor(location.getUri());
-			IDocument document = LSPEclipseUtils.getDocument(resource);
-			if (document != null) {
-				int startOffset = LSPEclipseUtils.toOffset(location.getRange().getStart(), document);
-				int endOffset = LSPEclipseUtils.toOffset(location.getRange().getEnd(), document);
+			while (true) {
+				if (monitor.isCanceled()) {
+					references.cancel(true);
+					matches.cancel(true);
+					return Status.CANCEL_STATUS;
+				}
+				try {
+					matches.get(CANCELLATION_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+					return Status.OK_STATUS;
+				} catch (TimeoutException e) {
+					// check the cancellation again
+				} catch (CancellationException e) {
+					return Status.CANCEL_STATUS;
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause() != null ? e.getCause() : e;
+					return new Status(IStatus.ERROR, LanguageServerPlugin.getDefault().getBundle().getSymbolicName(), cause.getMessage(), cause);
+				}
+			}
+		} finally {
+			endTime = System.currentTimeMillis();
+			monitor.done();
+		}
+	}
 
-				IRegion lineInformation = document.getLineInformationOfOffset(startOffset);
-				LineElement lineEntry = new LineElement(resource, document.getLineOfOffset(startOffset), lineInformation.getOffset(), document.get(lineInformation.getOffset(), lineInformation.getLength()));
-				return new FileMatch((IFile) resource, startOffset, endOffset - startOffset, lineEntry);
+	/**
+	 * @return the key of the implementations at the position in the current
+	 *         version of the document, or <code>null</code> if the document
+	 *         version is unknown
+	 */
+	private String getCacheKey() {
+		IDocument document = info.getDocument();
+		if (!(document instanceof IDocumentExtension4)) {
+			return null;
+		}
+		long version = ((IDocumentExtension4) document).getModificationStamp();
+		if (version == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP) {
+			return null;
+		}
+		return ImplementationsCache.getKey(info.getFileUri().toString(), version, position);
+	}
 
+	/**
+	 * Converts the locations to matches file by file, in parallel, reading each
+	 * file once, and adds the matches of each file in a single batch
+	 */
+	private void addMatches(List<? extends Location> locations) {
+		Map<String, List<Location>> locationsByUri = new LinkedHashMap<>();
+		for (Location location : locations) {
+			locationsByUri.computeIfAbsent(location.getUri(), uri -> new ArrayList<>()).add(location);
+		}
+		locationsByUri.entrySet().parallelStream().forEach(entry -> {
+			Match[] matches = toMatches(entry.getKey(), entry.getValue());
+			if (matches.length > 0) {
+				result.addMatches(matches);
 			}
-			Position startPosition = location.getRange().getStart();
-			LineElement lineEntry = new LineElement(resource, startPosition.getLine(), 0, String.format("%s:%s", startPosition.getLine(), startPosition.getCharacter())); //$NON-NLS-1$
-			return new FileMatch((IFile) resource, 0, 0, lineEntry);
-		} catch (BadLocationException ex) {
+		});
+	}
+
+	/**
+	 * Convert the given LSP {@link Location}s of a file to Eclipse search
+	 * {@link Match}es.
+	 *
+	 * @param uri
+	 *            the file of the locations.
+	 * @param locations
+	 *            the LSP locations to convert.
+	 * @return the converted Eclipse search {@link Match}es.
+	 */
+	private static Match[] toMatches(String uri, List<Location> locations) {
+		IResource resource = LSPEclipseUtils.findResourceFor(uri);
+		if (!(resource instanceof IFile)) {
+			return new Match[0];
+		}
+		IFile file = (IFile) resource;
+		LineIndex lines = null;
+		try {
+			lines = LineIndex.of(file);
+		} catch (IOException | CoreException ex) {
 			LanguageServerPlugin.logError(ex);
 		}
-		return null;
+		Match[] matches = new Match[locations.size()];
+		for (int i = 0; i < matches.length; i++) {
+			Position startPosition = locations.get(i).getRange().getStart();
+			if (lines == null) {
+				LineElement lineEntry = new LineElement(file, startPosition.getLine(), 0, String.format("%s:%s", startPosition.getLine(), startPosition.getCharacter())); //$NON-NLS-1$
+				matches[i] = new FileMatch(file, 0, 0, lineEntry);
+				continue;
+			}
+			int startOffset = lines.toOffset(startPosition);
+			int endOffset = lines.toOffset(locations.get(i).getRange().getEnd());
+			int line = Math.min(startPosition.getLine(), lines.getLineCount() - 1);
+			LineElement lineEntry = new LineElement(file, line, lines.getLineOffset(line), lines.getLineContent(line));
+			matches[i] = new FileMatch(file, startOffset, Math.max(0, endOffset - startOffset), lineEntry);
+		}
+		return matches;
 	}
 
 	@Override public ISearchResult getSearchResult() {
@@ -134,7 +261,8 @@ public class ImplementationsSearchQuery extends FileSearchQuery {
 	@Override public String getResultLabel(int nMatches) {
 		long time = 0;
 		if (startTime > 0) {
-			time = System.currentTimeMillis() - startTime;
+			// the time taken so far while the search is running
+			time = (endTime > 0 ? endTime : System.currentTimeMillis()) - startTime;
 		}
 		if (nMatches == 1) {
 			return NLS.bind(Messages.ImplementationsSearchQuery_oneReference, new Object[] { filename, position.getLine() + 1, position.getCharacter() + 1, time });
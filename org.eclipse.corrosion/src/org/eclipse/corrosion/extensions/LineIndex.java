@@ -0,0 +1,118 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.extensions;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.LocationKind;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.lsp4j.Position;
+
+/**
+ * The offsets of the lines of a text, to convert many LSP positions of the same
+ * file to offsets without reading it again
+ */
+public class LineIndex {
+	private final CharSequence text;
+	private final int[] lineOffsets;
+	private final int lineCount;
+
+	public LineIndex(CharSequence text) {
+		this.text = text;
+		int[] offsets = new int[16];
+		int count = 1;
+		int length = text.length();
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if (c == '\n' || (c == '\r' && (i + 1 == length || text.charAt(i + 1) != '\n'))) {
+				if (count == offsets.length) {
+					offsets = Arrays.copyOf(offsets, count * 2);
+				}
+				offsets[count++] = i + 1;
+			}
+		}
+		this.lineOffsets = offsets;
+		this.lineCount = count;
+	}
+
+	/**
+	 * Reads the content of the given file from its open buffer if any, so that
+	 * unsaved changes are taken into account, or else from the file. The file is
+	 * read at once rather than mapped, as a mapping would keep it locked on
+	 * Windows until the buffer is garbage collected.
+	 */
+	public static LineIndex of(IFile file) throws IOException, CoreException {
+		ITextFileBuffer buffer = FileBuffers.getTextFileBufferManager().getTextFileBuffer(file.getFullPath(),
+				LocationKind.IFILE);
+		if (buffer != null) {
+			return new LineIndex(buffer.getDocument().get());
+		}
+		IPath location = file.getLocation();
+		if (location == null) {
+			throw new IOException(file.getFullPath().toString());
+		}
+		byte[] bytes = Files.readAllBytes(location.toFile().toPath());
+		return new LineIndex(new String(bytes, Charset.forName(file.getCharset())));
+	}
+
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * @return the offset of the given line, or the length of the text if the
+	 *         line is after the end
+	 */
+	public int getLineOffset(int line) {
+		if (line < 0) {
+			return 0;
+		}
+		return line < lineCount ? lineOffsets[line] : text.length();
+	}
+
+	/**
+	 * @return the content of the given line without its delimiter
+	 */
+	public String getLineContent(int line) {
+		return text.subSequence(getLineOffset(line), getLineEnd(line)).toString();
+	}
+
+	/**
+	 * @return the offset of the delimiter ending the given line
+	 */
+	private int getLineEnd(int line) {
+		int start = getLineOffset(line);
+		int end = line >= 0 && line + 1 < lineCount ? lineOffsets[line + 1] : text.length();
+		while (end > start && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')) {
+			end--;
+		}
+		return end;
+	}
+
+	/**
+	 * @return the offset of the given position, the character being clamped to
+	 *         the length of its line
+	 */
+	public int toOffset(Position position) {
+		int line = position.getLine();
+		if (line >= lineCount) {
+			return text.length();
+		}
+		int start = getLineOffset(line);
+		return Math.min(start + Math.max(0, position.getCharacter()), getLineEnd(line));
+	}
+}
@@ -18,61 +18,99 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.Job;
 
+/**
+ * Reports the progress of a <code>window/progress</code> task of the language
+ * server. The job sleeps until it is notified of an update, and merges the
+ * updates received within {@link #UPDATE_INTERVAL_MILLIS} into a single update
+ * of its progress monitor.
+ */
 public class ProgressIndicatorJob extends Job {
-	private SubMonitor subMonitor;
+	private static final long UPDATE_INTERVAL_MILLIS = 100;
+
+	private final Object lock = new Object();
 	private int completedPercentage = 0;
 	private String subTaskName;
+	private boolean hasChanged = false;
 	private boolean isCompleted = false;
+	private boolean isCanceled = false;
 
 	public ProgressIndicatorJob(String type) {
 		super(type);
 	}
 
 	public void update(ProgressParams params) {
-		if (params.isDone()) {
-			isCompleted = true;
-		} else if (params.getMessage() != null) {
-			updateCrateName(params.getMessage());
-		} else if (params.getPercentage() > completedPercentage) {
-			updatePercentage(params.getPercentage());
-		}
-	}
-
-	private void updateCrateName(String name) {
-		if (subMonitor != null) {
-			subMonitor.subTask(name);
+		synchronized (lock) {
+			if (params.isDone()) {
+				isCompleted = true;
+			} else if (params.getMessage() != null) {
+				subTaskName = params.getMessage();
+			} else if (params.getPercentage() > completedPercentage) {
+				completedPercentage = params.getPercentage();
+			} else {
+				return;
+			}
+			hasChanged = true;
+			lock.notifyAll();
 		}
-		this.subTaskName = name;
 	}
 
-	private void updatePercentage(int completedPercentage) {
-		if (subMonitor != null) {
-			subMonitor.worked(completedPercentage - this.completedPercentage);
+	@Override
+	protected void canceling() {
+		synchronized (lock) {
+			isCanceled = true;
+			lock.notifyAll();
 		}
-		this.completedPercentage = completedPercentage;
 	}
 
 	@Override
 	protected IStatus run(IProgressMonitor monitor) {
-		subMonitor = SubMonitor.convert(monitor, 100);
-		if (completedPercentage > 0) {
-			subMonitor.worked(completedPercentage);
-		}
+		SubMonitor subMonitor = SubMonitor.convert(monitor, getName(), 100);
+		int reportedPercentage = 0;
+		String reportedSubTaskName = null;
+		long nextUpdateMillis = 0;
 		try {
-			subMonitor.beginTask(getName(), IProgressMonitor.UNKNOWN);
-			if (subTaskName != null) {
-				subMonitor.subTask(subTaskName);
-			}
-			while (!subMonitor.isCanceled() && !isCompleted) {
-				Thread.sleep(50);
-			}
-			if (isCompleted) {
-				return Status.OK_STATUS;
+			while (awaitUpdate(nextUpdateMillis)) {
+				int percentage;
+				String name;
+				synchronized (lock) {
+					hasChanged = false;
+					percentage = completedPercentage;
+					name = subTaskName;
+				}
+				if (name != null && !name.equals(reportedSubTaskName)) {
+					subMonitor.subTask(name);
+					reportedSubTaskName = name;
+				}
+				if (percentage > reportedPercentage) {
+					subMonitor.worked(percentage - reportedPercentage);
+					reportedPercentage = percentage;
+				}
+				nextUpdateMillis = System.currentTimeMillis() + UPDATE_INTERVAL_MILLIS;
 			}
 		} catch (InterruptedException e) {
 			Thread.currentThread().interrupt();
 		}
-		return Status.CANCEL_STATUS;
+		synchronized (lock) {
+			return isCompleted ? Status.OK_STATUS : Status.CANCEL_STATUS;
+		}
 	}
 
+	/**
+	 * Waits until an update is pending and the previous one is older than
+	 * {@link #UPDATE_INTERVAL_MILLIS}
+	 *
+	 * @return <code>false</code> if the task was completed or cancelled instead
+	 */
+	private boolean awaitUpdate(long nextUpdateMillis) throws InterruptedException {
+		synchronized (lock) {
+			while (!isCompleted && !isCanceled) {
+				long delay = nextUpdateMillis - System.currentTimeMillis();
+				if (hasChanged && delay <= 0) {
+					return true;
+				}
+				lock.wait(hasChanged ? delay : 0);
+			}
+			return false;
+		}
+	}
 }
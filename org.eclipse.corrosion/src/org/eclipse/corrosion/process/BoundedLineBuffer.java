@@ -0,0 +1,85 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.process;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thread-safe ring buffer keeping only the most recent lines written to it, so
+ * that draining a chatty process never grows memory without bounds.
+ */
+public class BoundedLineBuffer {
+	private final String[] lines;
+	private int start = 0;
+	private int size = 0;
+	private long droppedLines = 0;
+	private String firstLine;
+
+	public BoundedLineBuffer(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive"); //$NON-NLS-1$
+		}
+		this.lines = new String[capacity];
+	}
+
+	public synchronized void add(String line) {
+		if (firstLine == null) {
+			firstLine = line;
+		}
+		if (size < lines.length) {
+			lines[(start + size) % lines.length] = line;
+			size++;
+		} else {
+			lines[start] = line;
+			start = (start + 1) % lines.length;
+			droppedLines++;
+		}
+	}
+
+	/**
+	 * @return the retained lines, oldest first
+	 */
+	public synchronized List<String> getLines() {
+		List<String> result = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			result.add(lines[(start + i) % lines.length]);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the first line written since the buffer was created or cleared,
+	 *         even if it was since discarded, or <code>null</code> if there is
+	 *         none
+	 */
+	public synchronized String getFirstLine() {
+		return firstLine;
+	}
+
+	/**
+	 * @return the number of lines that were discarded because the buffer was full
+	 */
+	public synchronized long getDroppedLines() {
+		return droppedLines;
+	}
+
+	public synchronized void clear() {
+		start = 0;
+		size = 0;
+		droppedLines = 0;
+		firstLine = null;
+	}
+
+	@Override
+	public String toString() {
+		return String.join("\n", getLines()); //$NON-NLS-1$
+	}
+}
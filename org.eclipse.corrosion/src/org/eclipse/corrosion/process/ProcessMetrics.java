@@ -0,0 +1,153 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.process;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregated spawn latency and exit statistics of the processes started through
+ * {@link ProcessRunner}, grouped by executable and sub-command.
+ */
+public class ProcessMetrics {
+	private static final Map<String, Statistics> STATISTICS = new ConcurrentHashMap<>();
+
+	private ProcessMetrics() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	public static class Statistics {
+		private final String command;
+		private long spawns;
+		private long runs;
+		private long failures;
+		private long timeouts;
+		private long cancellations;
+		private long totalSpawnNanos;
+		private long maxSpawnNanos;
+		private long totalDurationMillis;
+		private long maxDurationMillis;
+		private int lastExitCode;
+
+		private Statistics(String command) {
+			this.command = command;
+		}
+
+		private synchronized void recordSpawn(long spawnNanos) {
+			spawns++;
+			totalSpawnNanos += spawnNanos;
+			maxSpawnNanos = Math.max(maxSpawnNanos, spawnNanos);
+		}
+
+		private synchronized void recordResult(ProcessResult result) {
+			runs++;
+			totalDurationMillis += result.getDurationMillis();
+			maxDurationMillis = Math.max(maxDurationMillis, result.getDurationMillis());
+			lastExitCode = result.getExitCode();
+			if (result.isTimedOut()) {
+				timeouts++;
+			} else if (result.isCanceled()) {
+				cancellations++;
+			} else if (result.getExitCode() != 0) {
+				failures++;
+			}
+		}
+
+		public String getCommand() {
+			return command;
+		}
+
+		public synchronized long getSpawns() {
+			return spawns;
+		}
+
+		/**
+		 * @return the number of processes run to completion, timeout or
+		 *         cancellation, excluding the long running processes only
+		 *         started
+		 */
+		public synchronized long getRuns() {
+			return runs;
+		}
+
+		public synchronized long getFailures() {
+			return failures;
+		}
+
+		public synchronized long getTimeouts() {
+			return timeouts;
+		}
+
+		public synchronized long getCancellations() {
+			return cancellations;
+		}
+
+		public synchronized double getAverageSpawnMillis() {
+			return spawns == 0 ? 0 : totalSpawnNanos / 1_000_000d / spawns;
+		}
+
+		public synchronized double getMaxSpawnMillis() {
+			return maxSpawnNanos / 1_000_000d;
+		}
+
+		public synchronized double getAverageDurationMillis() {
+			return runs == 0 ? 0 : (double) totalDurationMillis / runs;
+		}
+
+		public synchronized long getMaxDurationMillis() {
+			return maxDurationMillis;
+		}
+
+		public synchronized int getLastExitCode() {
+			return lastExitCode;
+		}
+
+		@Override
+		public synchronized String toString() {
+			return String.format("%s: %d spawns (avg %.1fms, max %.1fms), %d failures, %d timeouts, %d cancellations", //$NON-NLS-1$
+					command, spawns, getAverageSpawnMillis(), getMaxSpawnMillis(), failures, timeouts, cancellations);
+		}
+	}
+
+	static void recordSpawn(List<String> command, long spawnNanos) {
+		getStatistics(command).recordSpawn(spawnNanos);
+	}
+
+	static void recordResult(List<String> command, ProcessResult result) {
+		getStatistics(command).recordResult(result);
+	}
+
+	private static Statistics getStatistics(List<String> command) {
+		return STATISTICS.computeIfAbsent(toKey(command), Statistics::new);
+	}
+
+	private static String toKey(List<String> command) {
+		String key = new File(command.get(0)).getName();
+		if (command.size() > 1 && !command.get(1).startsWith("-")) { //$NON-NLS-1$
+			key += ' ' + command.get(1);
+		}
+		return key;
+	}
+
+	/**
+	 * @return the statistics of every command run so far
+	 */
+	public static Collection<Statistics> getStatistics() {
+		return new ArrayList<>(STATISTICS.values());
+	}
+
+	public static void reset() {
+		STATISTICS.clear();
+	}
+}
@@ -0,0 +1,129 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.process;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Reads the memory and CPU usage of a process from <code>/proc</code>. Only
+ * supported on Linux, other platforms report no samples.
+ */
+public class ProcessResourceSampler {
+	public static final long UNKNOWN_PID = -1;
+
+	// USER_HZ, the unit of the CPU times in /proc/<pid>/stat, is 100 on all
+	// supported architectures
+	private static final long CLOCK_TICKS_PER_SECOND = 100;
+	private static final int UTIME_FIELD_INDEX = 11;
+	private static final int STIME_FIELD_INDEX = 12;
+	private static final Path PROC = Paths.get("/proc"); //$NON-NLS-1$
+
+	private ProcessResourceSampler() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Memory and CPU usage of a process at a given time
+	 */
+	public static class ResourceSample {
+		private final long residentBytes;
+		private final long cpuTimeMillis;
+		private final long sampleTimeMillis;
+
+		ResourceSample(long residentBytes, long cpuTimeMillis, long sampleTimeMillis) {
+			this.residentBytes = residentBytes;
+			this.cpuTimeMillis = cpuTimeMillis;
+			this.sampleTimeMillis = sampleTimeMillis;
+		}
+
+		public long getResidentBytes() {
+			return residentBytes;
+		}
+
+		public long getCpuTimeMillis() {
+			return cpuTimeMillis;
+		}
+
+		/**
+		 * @param previous
+		 *            an earlier sample of the same process
+		 * @return the percentage of one CPU used between the two samples
+		 */
+		public double getCpuUsageSince(ResourceSample previous) {
+			long elapsed = sampleTimeMillis - previous.sampleTimeMillis;
+			if (elapsed <= 0) {
+				return 0;
+			}
+			return 100.0 * (cpuTimeMillis - previous.cpuTimeMillis) / elapsed;
+		}
+	}
+
+	/**
+	 * Finds the operating system identifier of a process, using
+	 * <code>Process.pid()</code> when running on Java 9 or later and the
+	 * <code>pid</code> field of the Java 8 UNIX implementation otherwise.
+	 *
+	 * @param process
+	 *            the process
+	 * @return the process identifier or {@link #UNKNOWN_PID}
+	 */
+	public static long getPid(Process process) {
+		try {
+			Method pidMethod = Process.class.getMethod("pid"); //$NON-NLS-1$
+			return ((Number) pidMethod.invoke(process)).longValue();
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// Before Java 9
+		}
+		try {
+			Field pidField = process.getClass().getDeclaredField("pid"); //$NON-NLS-1$
+			pidField.setAccessible(true);
+			return pidField.getLong(process);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return UNKNOWN_PID;
+		}
+	}
+
+	/**
+	 * @param pid
+	 *            the process identifier
+	 * @return the current usage of the process, or <code>null</code> if it cannot
+	 *         be read
+	 */
+	public static ResourceSample sample(long pid) {
+		if (pid == UNKNOWN_PID) {
+			return null;
+		}
+		Path processDirectory = PROC.resolve(Long.toString(pid));
+		try {
+			long residentBytes = -1;
+			for (String line : Files.readAllLines(processDirectory.resolve("status"), StandardCharsets.UTF_8)) { //$NON-NLS-1$
+				if (line.startsWith("VmRSS:")) { //$NON-NLS-1$
+					// reported in kB
+					residentBytes = Long.parseLong(line.substring(6).trim().split("\\s+")[0]) * 1024; //$NON-NLS-1$
+					break;
+				}
+			}
+			String stat = new String(Files.readAllBytes(processDirectory.resolve("stat")), StandardCharsets.UTF_8); //$NON-NLS-1$
+			// the command name in parenthesis may contain spaces
+			String[] fields = stat.substring(stat.lastIndexOf(')') + 1).trim().split("\\s+"); //$NON-NLS-1$
+			long cpuTicks = Long.parseLong(fields[UTIME_FIELD_INDEX]) + Long.parseLong(fields[STIME_FIELD_INDEX]);
+			return new ResourceSample(residentBytes, cpuTicks * 1000 / CLOCK_TICKS_PER_SECOND,
+					System.currentTimeMillis());
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+}
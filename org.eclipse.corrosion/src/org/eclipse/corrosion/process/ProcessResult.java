@@ -0,0 +1,89 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.process;
+
+import java.util.List;
+
+/**
+ * Outcome of a process run by {@link ProcessRunner}
+ */
+public class ProcessResult {
+	private final int exitCode;
+	private final boolean timedOut;
+	private final boolean canceled;
+	private final List<String> outputLines;
+	private final String firstOutputLine;
+	private final List<String> errorLines;
+	private final long durationMillis;
+
+	ProcessResult(int exitCode, boolean timedOut, boolean canceled, List<String> outputLines,
+			String firstOutputLine, List<String> errorLines, long durationMillis) {
+		this.exitCode = exitCode;
+		this.timedOut = timedOut;
+		this.canceled = canceled;
+		this.outputLines = outputLines;
+		this.firstOutputLine = firstOutputLine == null ? "" : firstOutputLine; //$NON-NLS-1$
+		this.errorLines = errorLines;
+		this.durationMillis = durationMillis;
+	}
+
+	/**
+	 * @return the exit code of the process, or <code>-1</code> if it was killed
+	 *         after a timeout or a cancellation
+	 */
+	public int getExitCode() {
+		return exitCode;
+	}
+
+	/**
+	 * @return whether the process completed on its own with a zero exit code
+	 */
+	public boolean isSuccessful() {
+		return !timedOut && !canceled && exitCode == 0;
+	}
+
+	public boolean isTimedOut() {
+		return timedOut;
+	}
+
+	public boolean isCanceled() {
+		return canceled;
+	}
+
+	/**
+	 * @return the retained lines of the standard output
+	 */
+	public List<String> getOutputLines() {
+		return outputLines;
+	}
+
+	/**
+	 * @return the first line of the standard output, even if it is no longer
+	 *         retained, or an empty string
+	 */
+	public String getFirstOutputLine() {
+		return firstOutputLine;
+	}
+
+	/**
+	 * @return the retained lines of the error output
+	 */
+	public List<String> getErrorLines() {
+		return errorLines;
+	}
+
+	public String getErrorOutput() {
+		return String.join("\n", errorLines); //$NON-NLS-1$
+	}
+
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+}
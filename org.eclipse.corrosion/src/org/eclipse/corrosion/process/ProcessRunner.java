@@ -0,0 +1,227 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.process;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Single entry point to run external tools. Output and error streams are
+ * drained asynchronously into bounded line buffers, the process is killed when
+ * the optional timeout expires or when the progress monitor is canceled, and
+ * spawn latency and exit status are recorded in {@link ProcessMetrics}.
+ */
+public class ProcessRunner {
+	private static final long POLL_INTERVAL_MILLIS = 50;
+	private static final long DRAIN_GRACE_MILLIS = 2000;
+	private static final long KILLED_DRAIN_GRACE_MILLIS = 200;
+	private static final int DEFAULT_MAX_BUFFERED_LINES = 1000;
+
+	private static final ExecutorService DRAIN_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "Corrosion process stream drain"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final List<String> command;
+	private File directory;
+	private Map<String, String> environment;
+	private long timeoutMillis = 0;
+	private int maxBufferedLines = DEFAULT_MAX_BUFFERED_LINES;
+	private Consumer<String> outputLineConsumer;
+	private Consumer<String> errorLineConsumer;
+
+	public ProcessRunner(String... command) {
+		this(Arrays.asList(command));
+	}
+
+	public ProcessRunner(List<String> command) {
+		if (command.isEmpty()) {
+			throw new IllegalArgumentException("command cannot be empty"); //$NON-NLS-1$
+		}
+		this.command = Collections.unmodifiableList(new ArrayList<>(command));
+	}
+
+	public ProcessRunner directory(File directory) {
+		this.directory = directory;
+		return this;
+	}
+
+	/**
+	 * @param environment
+	 *            variables added to, or replacing, the ones inherited from the
+	 *            IDE
+	 */
+	public ProcessRunner environment(Map<String, String> environment) {
+		this.environment = environment;
+		return this;
+	}
+
+	/**
+	 * @param timeout
+	 *            the maximum time the process may run before being killed, or
+	 *            <code>0</code> for no limit
+	 */
+	public ProcessRunner timeout(long timeout, TimeUnit unit) {
+		this.timeoutMillis = unit.toMillis(timeout);
+		return this;
+	}
+
+	/**
+	 * @param maxBufferedLines
+	 *            the number of most recent lines retained for each stream
+	 */
+	public ProcessRunner maxBufferedLines(int maxBufferedLines) {
+		this.maxBufferedLines = maxBufferedLines;
+		return this;
+	}
+
+	/**
+	 * @param consumer
+	 *            called from a drain thread for each line of the standard output
+	 */
+	public ProcessRunner onOutputLine(Consumer<String> consumer) {
+		this.outputLineConsumer = consumer;
+		return this;
+	}
+
+	/**
+	 * @param consumer
+	 *            called from a drain thread for each line of the error output
+	 */
+	public ProcessRunner onErrorLine(Consumer<String> consumer) {
+		this.errorLineConsumer = consumer;
+		return this;
+	}
+
+	public List<String> getCommand() {
+		return command;
+	}
+
+	/**
+	 * Starts a long running process without draining its streams, recording its
+	 * spawn latency. The caller is responsible for reading the streams and
+	 * destroying the process.
+	 *
+	 * @return the started process
+	 * @throws IOException
+	 *             if the process cannot be started
+	 */
+	public Process start() throws IOException {
+		ProcessBuilder builder = new ProcessBuilder(command);
+		if (directory != null) {
+			builder.directory(directory);
+		}
+		if (environment != null) {
+			builder.environment().putAll(environment);
+		}
+		long spawnStart = System.nanoTime();
+		Process process = builder.start();
+		ProcessMetrics.recordSpawn(command, System.nanoTime() - spawnStart);
+		return process;
+	}
+
+	/**
+	 * Runs the process to completion, timeout or cancellation. Its standard input
+	 * is closed right away.
+	 *
+	 * @param monitor
+	 *            the monitor whose cancellation kills the process, may be
+	 *            <code>null</code>
+	 * @return the result of the process
+	 * @throws IOException
+	 *             if the process cannot be started
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting, in which
+	 *             case the process is killed
+	 */
+	public ProcessResult run(IProgressMonitor monitor) throws IOException, InterruptedException {
+		long startTime = System.currentTimeMillis();
+		Process process = start();
+		process.getOutputStream().close();
+
+		BoundedLineBuffer output = new BoundedLineBuffer(maxBufferedLines);
+		BoundedLineBuffer error = new BoundedLineBuffer(maxBufferedLines);
+		Future<?> outputDrain = DRAIN_EXECUTOR.submit(() -> drain(process.getInputStream(), output, outputLineConsumer));
+		Future<?> errorDrain = DRAIN_EXECUTOR.submit(() -> drain(process.getErrorStream(), error, errorLineConsumer));
+
+		boolean timedOut = false;
+		boolean canceled = false;
+		try {
+			while (!process.waitFor(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+				if (monitor != null && monitor.isCanceled()) {
+					canceled = true;
+					break;
+				}
+				if (timeoutMillis > 0 && System.currentTimeMillis() - startTime >= timeoutMillis) {
+					timedOut = true;
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			process.destroyForcibly();
+			throw e;
+		}
+		boolean killed = timedOut || canceled;
+		if (killed) {
+			process.destroyForcibly();
+		}
+		long drainDeadline = System.currentTimeMillis() + (killed ? KILLED_DRAIN_GRACE_MILLIS : DRAIN_GRACE_MILLIS);
+		awaitDrain(outputDrain, drainDeadline);
+		awaitDrain(errorDrain, drainDeadline);
+
+		int exitCode = killed ? -1 : process.exitValue();
+		ProcessResult result = new ProcessResult(exitCode, timedOut, canceled, output.getLines(),
+				output.getFirstLine(), error.getLines(), System.currentTimeMillis() - startTime);
+		ProcessMetrics.recordResult(command, result);
+		return result;
+	}
+
+	private static void drain(InputStream stream, BoundedLineBuffer buffer, Consumer<String> consumer) {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
+			String line = reader.readLine();
+			while (line != null) {
+				buffer.add(line);
+				if (consumer != null) {
+					consumer.accept(line);
+				}
+				line = reader.readLine();
+			}
+		} catch (IOException e) {
+			// Stream closed when the process is destroyed
+		}
+	}
+
+	private static void awaitDrain(Future<?> drain, long deadline) throws InterruptedException {
+		try {
+			drain.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+		} catch (ExecutionException | TimeoutException e) {
+			// Child processes may keep the pipe open, the retained lines are used as is
+			drain.cancel(true);
+		}
+	}
+}
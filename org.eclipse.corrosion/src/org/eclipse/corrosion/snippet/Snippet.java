@@ -12,6 +12,9 @@
  *******************************************************************************/
 package org.eclipse.corrosion.snippet;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 import org.eclipse.lsp4e.LanguageServiceAccessor.LSPDocumentInfo;
@@ -28,6 +31,7 @@ public class Snippet {
 	private String[] replacementLines;
 	private String display;
 	private CompletionItemKind kind;
+	private final Map<String, String> replacements = new ConcurrentHashMap<>();
 
 	public Snippet(String display, CompletionItemKind kind, String[] replacementLines) {
 		this.replacementLines = replacementLines;
@@ -53,20 +57,33 @@ public class Snippet {
 		if (r == null) {
 			return null;
 		}
-		item.setTextEdit(new TextEdit(r, createReplacement(lineIndentation)));
+		item.setTextEdit(new TextEdit(r, getReplacement(lineIndentation)));
 		return new LSCompletionProposal(item, offset, info);
 	}
 
-	public boolean matchesPrefix(String prefix) {
-		return this.display.startsWith(prefix);
+	public String getDisplay() {
+		return display;
 	}
 
-	private String createReplacement(String lineIndentation) {
-		StringBuilder responseBuilder = new StringBuilder();
+	public CompletionItemKind getKind() {
+		return kind;
+	}
 
+	/**
+	 * @return the replacement text for a line with the given indentation, only
+	 *         built once per indentation
+	 */
+	private String getReplacement(String lineIndentation) {
 		if (replacementLines.length == 1) {
 			return replacementLines[0];
-		} else if (replacementLines.length > 1) {
+		}
+		return replacements.computeIfAbsent(lineIndentation, this::createReplacement);
+	}
+
+	private String createReplacement(String lineIndentation) {
+		StringBuilder responseBuilder = new StringBuilder();
+
+		if (replacementLines.length > 1) {
 			for (String line : replacementLines) {
 				if (responseBuilder.length() == 0) {
 					responseBuilder.append(line);
@@ -12,20 +12,15 @@
  *******************************************************************************/
 package org.eclipse.corrosion.snippet;
 
-import java.io.File;
-import java.io.IOException;
-import java.net.URL;
-import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.eclipse.core.runtime.FileLocator;
-import org.eclipse.core.runtime.Path;
-import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.edit.LargeFileMode;
+import org.eclipse.corrosion.edit.RustPartitions;
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
@@ -34,64 +29,27 @@ import org.eclipse.jface.text.contentassist.IContextInformation;
 import org.eclipse.jface.text.contentassist.IContextInformationValidator;
 import org.eclipse.lsp4e.LanguageServiceAccessor;
 import org.eclipse.lsp4e.LanguageServiceAccessor.LSPDocumentInfo;
-import org.eclipse.lsp4j.CompletionItemKind;
-
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 @SuppressWarnings("restriction")
 public class SnippetContentAssistProcessor implements IContentAssistProcessor {
-	private static final String SINGLE_LINE_COMMENT = "(?s).*(\\/\\/[^\\n]*)"; //$NON-NLS-1$
-	private static final String MULTI_LINE_COMMENT = "(?s).*\\/\\*(.(?!\\*\\/))*"; //$NON-NLS-1$
 	private static final String ENDS_WITH_WORD = "(?<indent>\\s*).*?(?<prefix>\\w*)"; //$NON-NLS-1$
 	private static final Pattern ENDS_WITH_WORD_PATTERN = Pattern.compile(ENDS_WITH_WORD);
-	private static final Pattern SINGLE_LINE_COMMENT_PATTERN = Pattern.compile(SINGLE_LINE_COMMENT);
-	private static final Pattern MULTI_LINE_COMMENT_PATTERN = Pattern.compile(MULTI_LINE_COMMENT);
-	private static final List<Snippet> snippets = new ArrayList<>();
-	static {
-		JsonArray snippetArray = null;
-		JsonParser parser = new JsonParser();
-		try {
-			URL url = FileLocator.toFileURL(FileLocator.find(CorrosionPlugin.getDefault().getBundle(), Path.fromPortableString("snippets/rust.json"), Collections.emptyMap())); //$NON-NLS-1$
-			StringBuilder snippetsBuilder = new StringBuilder();
-			Files.readAllLines(new File(url.getFile()).toPath()).forEach(line -> snippetsBuilder.append(line));
-			snippetArray = parser.parse(snippetsBuilder.toString()).getAsJsonArray();
-		} catch (IOException e) {
-			// Caught with null snippetArray
-		}
-
-		if (snippetArray != null) {
-			for (JsonElement jsonElement : snippetArray) {
-				JsonObject snippet = jsonElement.getAsJsonObject();
-
-				String name = snippet.get("display").getAsString(); //$NON-NLS-1$
-				int completionItemKind = snippet.get("completionItemKind").getAsInt(); //$NON-NLS-1$
-
-				JsonArray replacementLines = snippet.get("replacementLines").getAsJsonArray(); //$NON-NLS-1$
-				String[] lines = new String[replacementLines.size()];
-				for (int i = 0; i < replacementLines.size(); i++) {
-					lines[i] = replacementLines.get(i).getAsString();
-				}
-
-				addSnippet(new Snippet(name, CompletionItemKind.forValue(completionItemKind), lines));
-			}
-		}
-	}
-
-	private static void addSnippet(Snippet snippet) {
-		snippets.add(snippet);
-	}
 
 	@Override public ICompletionProposal[] computeCompletionProposals(ITextViewer viewer, int offset) {
 		IDocument document = viewer.getDocument();
-		String textToOffset = document.get().substring(0, offset);
-		if (isOffsetInComment(textToOffset)) {
+		if (LargeFileMode.isLarge(document) || RustPartitions.isInComment(document, offset)
+				|| RustPartitions.isInString(document, offset)) {
 			return new ICompletionProposal[0];
 		}
 
-		Matcher matcher = ENDS_WITH_WORD_PATTERN.matcher(textToOffset.substring(textToOffset.lastIndexOf('\n') + 1));
+		String linePrefix;
+		try {
+			int lineOffset = document.getLineInformationOfOffset(offset).getOffset();
+			linePrefix = document.get(lineOffset, offset - lineOffset);
+		} catch (BadLocationException e) {
+			return new ICompletionProposal[0];
+		}
+		Matcher matcher = ENDS_WITH_WORD_PATTERN.matcher(linePrefix);
 		matcher.matches();
 		String indent = matcher.group("indent"); //$NON-NLS-1$
 		String prefix = matcher.group("prefix"); //$NON-NLS-1$
@@ -99,20 +57,12 @@ public class SnippetContentAssistProcessor implements IContentAssistProcessor {
 		Collection<LSPDocumentInfo> infos = LanguageServiceAccessor.getLSPDocumentInfosFor(document, capabilities -> Boolean.TRUE.equals(capabilities.getReferencesProvider()));
 
 		List<ICompletionProposal> proposals = new ArrayList<>();
-		for (Snippet snippet : snippets) {
-			if (snippet.matchesPrefix(prefix)) {
-				proposals.add(snippet.convertToCompletionProposal(offset, infos.iterator().next(), prefix, indent));
-			}
+		for (Snippet snippet : SnippetLibrary.getInstance().getIndex().getMatches(prefix)) {
+			proposals.add(snippet.convertToCompletionProposal(offset, infos.iterator().next(), prefix, indent));
 		}
 		return proposals.toArray(new ICompletionProposal[proposals.size()]);
 	}
 
-	private boolean isOffsetInComment(String textToOffset) {
-		Matcher singleLineCommentMatcher = SINGLE_LINE_COMMENT_PATTERN.matcher(textToOffset);
-		Matcher multiLineCommentMatcher = MULTI_LINE_COMMENT_PATTERN.matcher(textToOffset);
-		return singleLineCommentMatcher.matches() || multiLineCommentMatcher.matches();
-	}
-
 	@Override public IContextInformation[] computeContextInformation(ITextViewer viewer, int offset) {
 		return new IContextInformation[0];
 	}
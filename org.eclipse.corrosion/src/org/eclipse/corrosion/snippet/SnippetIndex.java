@@ -0,0 +1,133 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.snippet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable index of snippets by the prefix of their name, ignoring case,
+ * and by the prefix of the initials of the words of their name, so that
+ * <code>mr</code> matches <code>macro_rules</code> and <code>ilo</code> matches
+ * <code>if let Option</code>. Both are sorted arrays searched with a binary
+ * search.
+ */
+public class SnippetIndex {
+	private static final Comparator<Entry> ENTRY_COMPARATOR = Comparator.comparing(entry -> entry.key);
+
+	private static final class Entry {
+		private final String key;
+		private final Snippet snippet;
+
+		private Entry(String key, Snippet snippet) {
+			this.key = key;
+			this.snippet = snippet;
+		}
+	}
+
+	private final Entry[] byName;
+	private final Entry[] byInitials;
+
+	public SnippetIndex(Collection<Snippet> snippets) {
+		List<Entry> names = new ArrayList<>(snippets.size());
+		List<Entry> initials = new ArrayList<>(snippets.size());
+		for (Snippet snippet : snippets) {
+			names.add(new Entry(snippet.getDisplay().toLowerCase(Locale.ROOT), snippet));
+			initials.add(new Entry(getInitials(snippet.getDisplay()), snippet));
+		}
+		byName = names.toArray(new Entry[names.size()]);
+		byInitials = initials.toArray(new Entry[initials.size()]);
+		Arrays.sort(byName, ENTRY_COMPARATOR);
+		Arrays.sort(byInitials, ENTRY_COMPARATOR);
+	}
+
+	/**
+	 * @return the snippets whose name starts with the prefix, followed by the
+	 *         snippets whose initials start with it, without duplicates
+	 */
+	public List<Snippet> getMatches(String prefix) {
+		String key = prefix.toLowerCase(Locale.ROOT);
+		int nameStart = lowerBound(byName, key);
+		int nameEnd = nameStart;
+		while (nameEnd < byName.length && byName[nameEnd].key.startsWith(key)) {
+			nameEnd++;
+		}
+		int initialsStart = lowerBound(byInitials, key);
+		int initialsEnd = initialsStart;
+		while (initialsEnd < byInitials.length && byInitials[initialsEnd].key.startsWith(key)) {
+			initialsEnd++;
+		}
+		if (nameStart == nameEnd && initialsStart == initialsEnd) {
+			return Collections.emptyList();
+		}
+		List<Snippet> matches = new ArrayList<>(nameEnd - nameStart + initialsEnd - initialsStart);
+		Map<Snippet, Boolean> added = new IdentityHashMap<>();
+		for (int i = nameStart; i < nameEnd; i++) {
+			added.put(byName[i].snippet, Boolean.TRUE);
+			matches.add(byName[i].snippet);
+		}
+		for (int i = initialsStart; i < initialsEnd; i++) {
+			if (added.put(byInitials[i].snippet, Boolean.TRUE) == null) {
+				matches.add(byInitials[i].snippet);
+			}
+		}
+		return matches;
+	}
+
+	public int size() {
+		return byName.length;
+	}
+
+	/**
+	 * @return the index of the first entry whose key is not lower than the given
+	 *         key
+	 */
+	private static int lowerBound(Entry[] entries, String key) {
+		int low = 0;
+		int high = entries.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (entries[middle].key.compareTo(key) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return the lower case first letters of the words of the name, which are
+	 *         separated by non letters or digits, or start with an upper case
+	 *         letter following a lower case one
+	 */
+	static String getInitials(String name) {
+		StringBuilder initials = new StringBuilder();
+		boolean previousIsPartOfWord = false;
+		boolean previousIsLowerCase = false;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			boolean isPartOfWord = Character.isLetterOrDigit(c);
+			if (isPartOfWord && (!previousIsPartOfWord || (previousIsLowerCase && Character.isUpperCase(c)))) {
+				initials.append(Character.toLowerCase(c));
+			}
+			previousIsPartOfWord = isPartOfWord;
+			previousIsLowerCase = Character.isLowerCase(c);
+		}
+		return initials.toString();
+	}
+}
@@ -0,0 +1,385 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.corrosion.snippet;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.lsp4j.CompletionItemKind;
+import org.eclipse.osgi.util.NLS;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * The snippets bundled with Corrosion, the ones of the user in
+ * <code>~/.corrosion/snippets/*.json</code> and the ones of the open projects
+ * in <code>.corrosion/snippets/*.json</code>. The files are loaded in the
+ * background on the first request and reloaded file by file when they are
+ * changed; each change swaps in a new immutable {@link SnippetIndex}. All the
+ * files are read by the watcher thread, including the ones of the projects
+ * opened later.
+ */
+public class SnippetLibrary {
+	private static final String BUNDLED_SNIPPETS = "snippets/rust.json"; //$NON-NLS-1$
+	private static final String SNIPPETS_FOLDER = ".corrosion/snippets"; //$NON-NLS-1$
+	private static final String SNIPPETS_FILE_EXTENSION = ".json"; //$NON-NLS-1$
+	private static final long PROJECT_CHANGES_DELAY_MILLIS = 500;
+
+	private static final SnippetLibrary INSTANCE = new SnippetLibrary();
+
+	private final Map<Path, List<Snippet>> snippetsByFile = new ConcurrentHashMap<>();
+	private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+	private final Queue<IProject> changedProjects = new ConcurrentLinkedQueue<>();
+	private final IResourceChangeListener projectListener = this::projectsChanged;
+	private List<Snippet> bundledSnippets = Collections.emptyList();
+	private WatchService watchService;
+	// the closest existing parent of the missing user snippets directory
+	private WatchKey userParentKey;
+	private volatile SnippetIndex index;
+
+	private SnippetLibrary() {
+	}
+
+	public static SnippetLibrary getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @return the index of the snippets currently loaded, starting to load them
+	 *         on the first call
+	 */
+	public SnippetIndex getIndex() {
+		SnippetIndex current = index;
+		if (current == null) {
+			synchronized (this) {
+				if (index == null) {
+					load();
+				}
+				current = index;
+			}
+		}
+		return current;
+	}
+
+	private void load() {
+		bundledSnippets = loadBundledSnippets();
+		index = new SnippetIndex(bundledSnippets);
+		try {
+			watchService = FileSystems.getDefault().newWatchService();
+		} catch (IOException e) {
+			CorrosionPlugin.logError(e);
+			return;
+		}
+		Thread watcher = new Thread(this::watch, "Corrosion snippet watcher"); //$NON-NLS-1$
+		watcher.setDaemon(true);
+		watcher.start();
+	}
+
+	private static List<Snippet> loadBundledSnippets() {
+		try (InputStream stream = FileLocator.openStream(CorrosionPlugin.getDefault().getBundle(),
+				org.eclipse.core.runtime.Path.fromPortableString(BUNDLED_SNIPPETS), false);
+				Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+			return parse(reader);
+		} catch (IOException | JsonParseException | IllegalStateException e) {
+			CorrosionPlugin.logError(e);
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * Parses a JSON array of snippets, each having a <code>display</code> name,
+	 * <code>replacementLines</code> and an optional
+	 * <code>completionItemKind</code>, defaulting to
+	 * {@link CompletionItemKind#Snippet}
+	 */
+	public static List<Snippet> parse(Reader reader) {
+		JsonArray snippetArray = new JsonParser().parse(reader).getAsJsonArray();
+		List<Snippet> snippets = new ArrayList<>(snippetArray.size());
+		for (JsonElement jsonElement : snippetArray) {
+			JsonObject snippet = jsonElement.getAsJsonObject();
+			if (!snippet.has("display") || !snippet.has("replacementLines")) { //$NON-NLS-1$ //$NON-NLS-2$
+				continue;
+			}
+			String name = snippet.get("display").getAsString(); //$NON-NLS-1$
+			CompletionItemKind kind = snippet.has("completionItemKind") //$NON-NLS-1$
+					? CompletionItemKind.forValue(snippet.get("completionItemKind").getAsInt()) //$NON-NLS-1$
+					: CompletionItemKind.Snippet;
+
+			JsonArray replacementLines = snippet.get("replacementLines").getAsJsonArray(); //$NON-NLS-1$
+			String[] lines = new String[replacementLines.size()];
+			for (int i = 0; i < replacementLines.size(); i++) {
+				lines[i] = replacementLines.get(i).getAsString();
+			}
+			snippets.add(new Snippet(name, kind, lines));
+		}
+		return snippets;
+	}
+
+	private void watch() {
+		addUserDirectory();
+		for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+			addProject(project);
+		}
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(projectListener, IResourceChangeEvent.POST_CHANGE);
+		rebuildIndex();
+		try {
+			while (true) {
+				// woken regularly to load the snippets of the changed projects
+				WatchKey key = watchService.poll(PROJECT_CHANGES_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+				boolean changed = updateChangedProjects();
+				if (key == null) {
+					if (changed) {
+						rebuildIndex();
+					}
+					continue;
+				}
+				if (key == userParentKey) {
+					// something was created on the way to the user snippets directory
+					key.pollEvents();
+					key.cancel();
+					addUserDirectory();
+					rebuildIndex();
+					continue;
+				}
+				Path directory = watchedDirectories.get(key);
+				if (directory != null) {
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (event.kind() == OVERFLOW) {
+							removeFiles(directory);
+							loadFiles(directory);
+							continue;
+						}
+						Path file = directory.resolve((Path) event.context());
+						if (!file.toString().endsWith(SNIPPETS_FILE_EXTENSION)) {
+							continue;
+						}
+						if (event.kind() == ENTRY_DELETE) {
+							snippetsByFile.remove(file);
+						} else {
+							loadFile(file);
+						}
+					}
+				}
+				if (!key.reset()) {
+					removeDirectory(key);
+					if (getUserDirectory().equals(directory)) {
+						addUserDirectory();
+					}
+				}
+				rebuildIndex();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e) {
+			// Stop watching, the listener may have been added after dispose()
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(projectListener);
+		}
+	}
+
+	/**
+	 * Stops watching the snippet files, to be called when the plug-in is
+	 * stopped. The snippets are loaded again on the next request.
+	 */
+	public synchronized void dispose() {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(projectListener);
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				CorrosionPlugin.logError(e);
+			}
+		}
+		watchedDirectories.clear();
+		changedProjects.clear();
+		userParentKey = null;
+		snippetsByFile.clear();
+		index = null;
+	}
+
+	/**
+	 * Queues the projects opened, closed or given a snippets folder, whose
+	 * files are read by the watcher thread rather than in the listener
+	 */
+	private void projectsChanged(IResourceChangeEvent event) {
+		if (event.getDelta() == null) {
+			return;
+		}
+		for (IResourceDelta projectDelta : event.getDelta().getAffectedChildren()) {
+			boolean openChanged = (projectDelta.getFlags() & IResourceDelta.OPEN) != 0
+					|| projectDelta.getKind() == IResourceDelta.ADDED;
+			IResourceDelta folderDelta = projectDelta
+					.findMember(org.eclipse.core.runtime.Path.fromPortableString(SNIPPETS_FOLDER));
+			if (openChanged || (folderDelta != null && folderDelta.getKind() == IResourceDelta.ADDED)) {
+				changedProjects.add((IProject) projectDelta.getResource());
+			}
+		}
+	}
+
+	private boolean updateChangedProjects() {
+		boolean changed = false;
+		IProject project;
+		while ((project = changedProjects.poll()) != null) {
+			if (!project.isOpen()) {
+				for (Map.Entry<WatchKey, Path> entry : watchedDirectories.entrySet()) {
+					if (entry.getValue().equals(getSnippetsDirectory(project))) {
+						entry.getKey().cancel();
+						removeDirectory(entry.getKey());
+						changed = true;
+					}
+				}
+			} else {
+				changed |= addProject(project);
+			}
+		}
+		return changed;
+	}
+
+	private static Path getUserDirectory() {
+		return Paths.get(System.getProperty("user.home"), SNIPPETS_FOLDER); //$NON-NLS-1$
+	}
+
+	/**
+	 * Watches the user snippets directory, or its closest existing parent until
+	 * the directory is created
+	 */
+	private void addUserDirectory() {
+		Path directory = getUserDirectory();
+		userParentKey = null;
+		if (addDirectory(directory)) {
+			return;
+		}
+		Path parent = directory.getParent();
+		while (parent != null && !Files.isDirectory(parent)) {
+			parent = parent.getParent();
+		}
+		if (parent == null) {
+			return;
+		}
+		try {
+			userParentKey = parent.register(watchService, ENTRY_CREATE);
+		} catch (IOException | ClosedWatchServiceException e) {
+			CorrosionPlugin.logError(e);
+			return;
+		}
+		if (Files.isDirectory(directory)) {
+			// created while the parent was being registered
+			userParentKey.cancel();
+			userParentKey = null;
+			addDirectory(directory);
+		}
+	}
+
+	private static Path getSnippetsDirectory(IProject project) {
+		IPath location = project.getLocation();
+		return location == null ? null : location.append(SNIPPETS_FOLDER).toFile().toPath();
+	}
+
+	private boolean addProject(IProject project) {
+		Path directory = project.isOpen() ? getSnippetsDirectory(project) : null;
+		return directory != null && !watchedDirectories.containsValue(directory) && addDirectory(directory);
+	}
+
+	private boolean addDirectory(Path directory) {
+		if (!Files.isDirectory(directory)) {
+			return false;
+		}
+		try {
+			watchedDirectories.put(directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE),
+					directory);
+		} catch (IOException | ClosedWatchServiceException e) {
+			CorrosionPlugin.logError(e);
+			return false;
+		}
+		loadFiles(directory);
+		return true;
+	}
+
+	private void removeDirectory(WatchKey key) {
+		Path directory = watchedDirectories.remove(key);
+		if (directory != null) {
+			removeFiles(directory);
+		}
+	}
+
+	private void loadFiles(Path directory) {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SNIPPETS_FILE_EXTENSION)) { //$NON-NLS-1$
+			for (Path file : files) {
+				loadFile(file);
+			}
+		} catch (IOException e) {
+			CorrosionPlugin.logError(e);
+		}
+	}
+
+	private void removeFiles(Path directory) {
+		snippetsByFile.keySet().removeIf(file -> directory.equals(file.getParent()));
+	}
+
+	private void loadFile(Path file) {
+		if (!Files.isRegularFile(file)) {
+			snippetsByFile.remove(file);
+			return;
+		}
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			snippetsByFile.put(file, parse(reader));
+		} catch (IOException | JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+			snippetsByFile.remove(file);
+			CorrosionPlugin.getDefault().getLog().log(new Status(IStatus.WARNING, CorrosionPlugin.PLUGIN_ID,
+					NLS.bind(Messages.SnippetLibrary_invalidSnippetFile, file), e));
+		}
+	}
+
+	private synchronized void rebuildIndex() {
+		List<Snippet> snippets = new ArrayList<>(bundledSnippets);
+		new TreeMap<>(snippetsByFile).values().forEach(snippets::addAll);
+		index = new SnippetIndex(snippets);
+	}
+}
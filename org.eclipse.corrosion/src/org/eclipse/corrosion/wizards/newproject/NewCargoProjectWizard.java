@@ -12,10 +12,8 @@
  *******************************************************************************/
 package org.eclipse.corrosion.wizards.newproject;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -39,6 +37,8 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.corrosion.Messages;
 import org.eclipse.corrosion.cargo.core.CargoTools;
+import org.eclipse.corrosion.process.ProcessResult;
+import org.eclipse.corrosion.process.ProcessRunner;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.wizard.Wizard;
@@ -55,6 +55,7 @@ import org.eclipse.ui.ide.IDE;
 public class NewCargoProjectWizard extends Wizard implements INewWizard {
 	private NewCargoProjectWizardPage wizardPage;
 	public static final String ID = "org.eclipse.corrosion.wizards.newCargo"; //$NON-NLS-1$
+	private static final long CARGO_INIT_TIMEOUT_SECONDS = 120;
 
 	public NewCargoProjectWizard() {
 		super();
@@ -129,19 +130,10 @@ public class NewCargoProjectWizard extends Wizard implements INewWizard {
 					commandLine.add("--lib"); //$NON-NLS-1$
 				}
 
-				ProcessBuilder processBuilder = new ProcessBuilder(commandLine);
-				processBuilder.directory(location);
-
 				try {
-					Process process = processBuilder.start();
-					boolean isProcessDone = false;
-					while (!isProcessDone) {
-						if (monitor.isCanceled()) {
-							process.destroyForcibly();
-						}
-						isProcessDone = process.waitFor(100, TimeUnit.MILLISECONDS);
-					}
-					if (process.exitValue() == 0) {
+					ProcessResult result = new ProcessRunner(commandLine).directory(location)
+							.timeout(CARGO_INIT_TIMEOUT_SECONDS, TimeUnit.SECONDS).run(monitor);
+					if (result.isSuccessful()) {
 						String mainFileName;
 						if (isBin) {
 							mainFileName = "main.rs"; //$NON-NLS-1$
@@ -150,14 +142,7 @@ public class NewCargoProjectWizard extends Wizard implements INewWizard {
 						}
 						createProject(projectName, location, mainFileName, monitor);
 					} else {
-						StringBuilder errorOutput = new StringBuilder();
-						try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
-							String errorLine;
-							while ((errorLine = in.readLine()) != null) {
-								errorOutput.append(errorLine + '\n');
-							}
-						}
-						final String finalErrorOutput = errorOutput.toString();
+						final String finalErrorOutput = result.getErrorOutput();
 						Display.getDefault().asyncExec(() -> {
 							if (makeLocation && !location.delete()) {
 								MessageDialog.openError(getShell(),
@@ -177,6 +162,9 @@ public class NewCargoProjectWizard extends Wizard implements INewWizard {
 						});
 					}
 					monitor.done();
+				} catch (InterruptedException e) {
+					monitor.done();
+					Thread.currentThread().interrupt();
 				} catch (IOException e) {
 					monitor.done();
 					Display.getDefault().asyncExec(() -> {